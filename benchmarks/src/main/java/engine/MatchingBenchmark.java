@@ -0,0 +1,102 @@
+package engine;
+
+import model.Instrument;
+import model.Order;
+import model.OrderType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import persistence.CancellationRegistry;
+import persistence.ExecutionRegistry;
+import persistence.JournalWriter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// un ciclu de matching pe o carte cu bookSize ordine care nu traverseaza pretul;
+// registrele sunt scrise intr-un director temporar, sters la final
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class MatchingBenchmark {
+    private static final double PRICE = 100;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int bookSize;
+
+    private Instrument instrument;
+    private OrderRepository repository;
+    private MatchingEngine engine;
+    private ExpiryWheel expiryWheel;
+    private JournalWriter journal;
+    private Path dir;
+    private int nextId;
+
+    @Setup
+    public void setup() throws IOException {
+        instrument = new Instrument(0, "AAPL", Integer.MAX_VALUE / 2, PRICE);
+        // ordinele nu expira in timpul masuratorii
+        expiryWheel = new ExpiryWheel(100, TimeUnit.HOURS.toMillis(1));
+        expiryWheel.start(o -> {});
+        repository = new OrderRepository(expiryWheel, 0);
+        journal = new JournalWriter(2, false, 65536);
+        journal.start();
+        dir = Files.createTempDirectory("matching-bench");
+        engine = new MatchingEngine(repository, Map.of(instrument.getName(), instrument),
+                new ExecutionRegistry(journal, null, dir), new CancellationRegistry(journal, null, dir), new PnlLedger());
+
+        // BUY sub pret, SELL peste pret: cartea ramane plina, matching-ul vede doar capetele
+        Random rnd = new Random(42);
+        for (int i = 0; i < bookSize; i++) {
+            boolean buy = (i & 1) == 0;
+            double limit = buy ? PRICE * (0.5 + 0.4 * rnd.nextDouble()) : PRICE * (1.1 + 0.4 * rnd.nextDouble());
+            add(new Order(++nextId, 1, instrument.getName(), buy ? OrderType.BUY : OrderType.SELL,
+                    rnd.nextInt(10) + 1, limit));
+        }
+    }
+
+    private void add(Order o) {
+        instrument.tryAllocate(o.getVolume());
+        repository.add(o);
+    }
+
+    // nimic nu traverseaza: costul unui ciclu gol pe o carte mare
+    @Benchmark
+    public void idleCycle() {
+        engine.match(instrument);
+    }
+
+    // un ordin nou care traverseaza pretul si e executat in acelasi ciclu
+    @Benchmark
+    public void executeCrossingOrder() {
+        add(new Order(++nextId, 2, instrument.getName(), OrderType.BUY, 1, PRICE + 1));
+        engine.match(instrument);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        expiryWheel.stop();
+        journal.close();
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+}
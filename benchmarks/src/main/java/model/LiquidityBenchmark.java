@@ -0,0 +1,62 @@
+package model;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// tryAllocate/release pe acelasi instrument, cu 1-64 thread-uri in competitie
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LiquidityBenchmark {
+    private Instrument instrument;
+
+    @Setup
+    public void setup() {
+        // destula lichiditate ca alocarea sa nu esueze niciodata
+        instrument = new Instrument(0, "AAPL", Integer.MAX_VALUE / 2, 100);
+    }
+
+    private boolean allocateRelease() {
+        boolean ok = instrument.tryAllocate(1);
+        if (ok) instrument.release(1);
+        return ok;
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean threads01() {
+        return allocateRelease();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean threads04() {
+        return allocateRelease();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public boolean threads16() {
+        return allocateRelease();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public boolean threads64() {
+        return allocateRelease();
+    }
+}
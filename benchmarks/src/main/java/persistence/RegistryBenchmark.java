@@ -0,0 +1,73 @@
+package persistence;
+
+import model.Order;
+import model.OrderType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// debitul registrelor; coada jurnalului se umple, deci se masoara ritmul sustinut al scrierii in fisiere.
+// Registrele si jurnalul binar se scriu intr-un director temporar, sters la final.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RegistryBenchmark {
+    @Param({"false", "true"})
+    public boolean binaryJournal;
+
+    private JournalWriter journal;
+    private BinaryJournal binary;
+    private Path dir;
+    private OrderRegistry orderRegistry;
+    private ExecutionRegistry executionRegistry;
+    private Order order;
+
+    @Setup
+    public void setup() throws IOException {
+        journal = new JournalWriter(2, false, 65536);
+        journal.start();
+        dir = Files.createTempDirectory("registry-bench");
+        if (binaryJournal) binary = new BinaryJournal(dir.resolve("journal").toString(), 64);
+        orderRegistry = new OrderRegistry(journal, binary, dir);
+        executionRegistry = new ExecutionRegistry(journal, binary, dir);
+        order = new Order(1, 42, "AAPL", OrderType.BUY, 10, 105.50);
+    }
+
+    @Benchmark
+    public void logOrder() {
+        orderRegistry.logOrder(order);
+    }
+
+    @Benchmark
+    public void logExecution() {
+        executionRegistry.logExecution(1, 10, 1055.0, 5.275);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        journal.close();
+        if (binary != null) binary.close();
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package server;
+
+import engine.EpochGate;
+import model.Instrument;
+import model.Order;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// parsarea unui ordin: linie CSV fata de cadrul binar
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderParsingBenchmark {
+    private final String line = "42,AAPL,BUY,10,105.50";
+    private final ByteBuffer body = ByteBuffer.allocate(2 + WireProtocol.ORDER_BODY);
+    private final OrderFrame frame = new OrderFrame();
+    private OrderProcessor processor;
+
+    @Setup
+    public void setup() {
+        processor = new OrderProcessor(o -> {}, Map.of("AAPL", new Instrument(0, "AAPL", 1000, 100)), null,
+                new EpochGate());
+        WireProtocol.encodeOrder(body, 42, 0, (byte) 0, 10, 105.50);
+    }
+
+    @Benchmark
+    public Order csv() {
+        return processor.parse(line);
+    }
+
+    @Benchmark
+    public OrderFrame binary() {
+        body.position(2);
+        WireProtocol.decode(body, frame, 1);
+        return frame;
+    }
+}
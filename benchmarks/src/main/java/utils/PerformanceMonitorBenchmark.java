@@ -0,0 +1,46 @@
+package utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// costul instrumentarii: o inregistrare in histograma, cu un thread si cu mai multe pe aceeasi operatie
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PerformanceMonitorBenchmark {
+    private long value = 12_345;
+
+    @Benchmark
+    @Threads(1)
+    public void recordTiming() {
+        PerformanceMonitor.recordTiming("bench_operation", value++ & 0xFFFFF);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void recordTimingContended() {
+        PerformanceMonitor.recordTiming("bench_operation", value++ & 0xFFFFF);
+    }
+
+    // nanoTime de doua ori plus inregistrarea, ca in blocurile try-with-resources din engine
+    @Benchmark
+    @Threads(1)
+    public void timer() {
+        try (PerformanceMonitor.Timer t = PerformanceMonitor.startTimer("bench_timer")) {
+            value++;
+        }
+    }
+}
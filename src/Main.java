@@ -1,18 +1,40 @@
+import client.LoadGenerator;
 import client.TradingBot;
 import engine.AuditService;
+import engine.EngineSnapshotter;
+import engine.EventMatchingEngine;
+import engine.ExpiryWheel;
 import engine.MatchingEngine;
+import engine.OrderIntake;
 import engine.OrderRepository;
+import engine.PnlLedger;
 import model.Instrument;
+import model.Order;
+import persistence.BinaryJournal;
 import persistence.CancellationRegistry;
+import persistence.Checkpoint;
+import persistence.Checkpointer;
+import persistence.EventLog;
 import persistence.ExecutionRegistry;
+import persistence.JournalWriter;
 import persistence.OrderRegistry;
+import persistence.ReplicationPrimary;
+import persistence.ReplicationStandby;
+import server.NioTradingServer;
+import server.OrderHandler;
+import server.OrderProcessor;
+import server.OrderRouter;
 import server.TradingServer;
 import utils.ConfigManager;
 import utils.PerformanceMonitor;
+import utils.StatsServer;
+import utils.VirtualThreads;
 
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.time.Instant;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.ConcurrentHashMap;
@@ -31,43 +53,184 @@ public class Main {
         System.out.println();
 
         ConfigManager configManager=ConfigManager.getInstance();
+        System.out.println("Virtual threads: " + (VirtualThreads.isEnabled() ? "ENABLED" : "DISABLED"));
 
         Map<String, Instrument> instruments = new ConcurrentHashMap<>();
-        instruments.put("AAPL", new Instrument("AAPL", 200, 100));
-        instruments.put("BTC", new Instrument("BTC", 150, 30000));
-        instruments.put("ETH", new Instrument("ETH", 150, 2000));
+        instruments.put("AAPL", new Instrument(0, "AAPL", 200, 100));
+        instruments.put("BTC", new Instrument(1, "BTC", 150, 30000));
+        instruments.put("ETH", new Instrument(2, "ETH", 150, 2000));
+        // numele circula impachetate in 8 bytes (jurnal binar, checkpoint, replicare)
+        instruments.keySet().forEach(BinaryJournal::checkName);
 
-        OrderRepository orderRepository = new OrderRepository();
+        if (configManager.isGateway()) {
+            startGateway(instruments);
+            return;
+        }
+        // un motor dintr-o implementare partitionata detine doar instrumentele sale (id-urile raman globale)
+        List<String> owned = configManager.getPartitionInstruments();
+        if (!owned.isEmpty()) instruments.keySet().retainAll(owned);
+
+        // standby: urmareste primarul si porneste ca server abia dupa promovare
+        ReplicationStandby standby = null;
+        if (configManager.isReplicationStandby()) {
+            standby = new ReplicationStandby(instruments);
+            try {
+                standby.awaitPromotion();
+            } catch (IOException e) {
+                System.err.println("Standby promotion aborted: " + e.getMessage());
+                System.exit(1);
+            }
+        }
+
+        ExpiryWheel expiryWheel = new ExpiryWheel(configManager.getExpiryTickMillis(),
+                configManager.getOrderExpTimeSeconds() * 1000L);
+        OrderRepository orderRepository = new OrderRepository(expiryWheel);
+
+        JournalWriter journal = new JournalWriter(configManager.getJournalCommitMillis(),
+                configManager.isJournalFsync(), configManager.getJournalQueueSize());
+        journal.start();
+
+        BinaryJournal binaryJournal = null;
+        Checkpoint recovered = null;
+        if (configManager.isBinaryJournal()) {
+            binaryJournal = new BinaryJournal(configManager.getBinaryJournalDir(),
+                    configManager.getBinaryJournalSegmentMb());
+            // starea unui standby promovat vine de la primar, nu din jurnalul local
+            if (standby == null) recovered = recover(binaryJournal, instruments, orderRepository);
+        }
+        if (standby != null) {
+            promote(standby, orderRepository);
+            // starea preluata nu e in jurnalul local: devine checkpoint-ul lui, ca o repornire sa nu o piarda
+            if (binaryJournal != null) {
+                recovered = Checkpoint.of(instruments, orderRepository.pending(), OrderProcessor.lastIssuedId());
+                binaryJournal.checkpoint(recovered);
+            }
+        }
+
+        // starea de pornire (recuperata sau preluata la promovare) ajunge la standby inaintea evenimentelor
+        ReplicationPrimary replication = configManager.isReplicationPrimary()
+                ? new ReplicationPrimary(Checkpoint.of(instruments, orderRepository.pending(),
+                        OrderProcessor.lastIssuedId()))
+                : null;
+        EventLog events = EventLog.of(binaryJournal, replication);
 
-        OrderRegistry orderRegistry = new OrderRegistry();
-        ExecutionRegistry executionRegistry = new ExecutionRegistry();
-        CancellationRegistry cancellationRegistry = new CancellationRegistry();
+        OrderRegistry orderRegistry = new OrderRegistry(journal, events);
+        ExecutionRegistry executionRegistry = new ExecutionRegistry(journal, events);
+        CancellationRegistry cancellationRegistry = new CancellationRegistry(journal, events);
 
         ScheduledExecutorService scheduler =
                 Executors.newScheduledThreadPool(configManager.getThreadNo());
 
-        scheduler.scheduleAtFixedRate(
-                new MatchingEngine(orderRepository, instruments,
-                    executionRegistry, cancellationRegistry),
-                0, configManager.getAuditIntervalSeconds(), TimeUnit.SECONDS);
+        PnlLedger ledger = new PnlLedger();
+        MatchingEngine matchingEngine = new MatchingEngine(orderRepository, instruments,
+                executionRegistry, cancellationRegistry, ledger);
+        expiryWheel.start(matchingEngine::expire);
+
+        OrderIntake orderIntake;
+        if (configManager.isEventMatching()) {
+            EventMatchingEngine eventEngine = new EventMatchingEngine(matchingEngine, orderRepository,
+                    instruments, configManager.getRingBufferSize(),
+                    configManager.getAuditIntervalSeconds() * 1000L);
+            eventEngine.start();
+            orderIntake = eventEngine;
+        } else {
+            scheduler.scheduleAtFixedRate(matchingEngine,
+                    0, configManager.getAuditIntervalSeconds(), TimeUnit.SECONDS);
+            orderIntake = orderRepository::add;
+        }
+
+        if (recovered != null && configManager.getCheckpointIntervalSeconds() > 0) {
+            scheduler.scheduleWithFixedDelay(
+                    new Checkpointer(binaryJournal, recovered, instruments, OrderProcessor::lastIssuedId),
+                    configManager.getCheckpointIntervalSeconds(), configManager.getCheckpointIntervalSeconds(),
+                    TimeUnit.SECONDS);
+        }
 
-        scheduler.scheduleAtFixedRate(
-                new AuditService(instruments, orderRepository),
+        EngineSnapshotter snapshotter = new EngineSnapshotter(instruments, orderRepository);
+        scheduler.scheduleAtFixedRate(snapshotter, 0, configManager.getSnapshotIntervalMillis(), TimeUnit.MILLISECONDS);
+
+        AuditService auditService = new AuditService(snapshotter);
+        scheduler.scheduleAtFixedRate(auditService,
                 0, configManager.getAuditIntervalSeconds(), TimeUnit.SECONDS);
 
+        if (configManager.getStatsPort() > 0) {
+            StatsServer statsServer = new StatsServer(configManager.getStatsPort(),
+                    configManager.getStatsWindowCount());
+            statsServer.start();
+            statsServer.addEndpoint("/ledger", ledger::toJson);
+            statsServer.addEndpoint("/audit", auditService::toJson);
+            statsServer.addEndpoint("/snapshot", snapshotter::toJson);
+            scheduler.scheduleAtFixedRate(statsServer::roll, configManager.getStatsWindowMillis(),
+                    configManager.getStatsWindowMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        OrderProcessor orderProcessor = new OrderProcessor(orderIntake, instruments, orderRegistry,
+                orderRepository.gate());
+        startServer(orderProcessor);
+
+        // motoarele partitionate primesc ordinele prin gateway, care porneste si clientii
+        if (!configManager.isEngineNode()) startClients(scheduler, instruments.keySet().toArray(new String[0]));
+
+        BinaryJournal finalBinaryJournal = binaryJournal;
+        scheduleShutdown(scheduler, () -> {
+            journal.close();
+            if (finalBinaryJournal != null) finalBinaryJournal.close();
+            if (replication != null) replication.close();
+        });
+    }
+
+    // modul gateway: fara motor si registre, doar rutarea ordinelor catre motoarele din gatewayRoutes
+    private static void startGateway(Map<String, Instrument> instruments) throws Exception {
+        ConfigManager configManager = ConfigManager.getInstance();
+        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2);
+
+        if (configManager.getStatsPort() > 0) {
+            StatsServer statsServer = new StatsServer(configManager.getStatsPort(),
+                    configManager.getStatsWindowCount());
+            statsServer.start();
+            scheduler.scheduleAtFixedRate(statsServer::roll, configManager.getStatsWindowMillis(),
+                    configManager.getStatsWindowMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        startServer(new OrderRouter(instruments));
+        startClients(scheduler, configManager.getGatewayRoutes().keySet().toArray(new String[0]));
+        scheduleShutdown(scheduler, () -> {});
+    }
+
+    private static void startServer(OrderHandler handler) {
+        ConfigManager configManager = ConfigManager.getInstance();
         new Thread(() -> {
             try {
-                new TradingServer(orderRepository, instruments, orderRegistry).start();
-            } catch (Exception ignored) {}
+                if (configManager.isNioServer()) new NioTradingServer(handler).start();
+                else new TradingServer(handler).start();
+            } catch (Exception e) {
+                // un nod care nu asculta pe portul serverului nu poate primi ordine
+                System.err.println("Server failed to start: " + e.getMessage());
+                System.exit(1);
+            }
         }).start();
+    }
 
-        for (int i = 1; i <= configManager.getBotNo(); i++) {
-            new Thread(new TradingBot(i)).start();
+    private static void startClients(ScheduledExecutorService scheduler, String[] names) {
+        ConfigManager configManager = ConfigManager.getInstance();
+        int port = configManager.getServerPort();
+        if (configManager.isLoadGen()) {
+            // generatorul de sarcina inlocuieste robotii; porneste dupa ce serverul accepta conexiuni
+            scheduler.schedule(() -> new Thread(new LoadGenerator("localhost", port), "load-generator").start(),
+                    1, TimeUnit.SECONDS);
+        } else {
+            for (int i = 1; i <= configManager.getBotNo(); i++) {
+                VirtualThreads.start(new TradingBot(i, names, port));
+            }
         }
+    }
 
+    private static void scheduleShutdown(ScheduledExecutorService scheduler, Runnable closeJournals) {
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
             System.out.println("\n\nSERVER SHUTDOWN - Generating performance report...\n");
 
+            closeJournals.run();
+
             PerformanceMonitor.printStatistics();
 
             PerformanceMonitor.exportToFile("performance_report.txt");
@@ -80,6 +243,51 @@ public class Main {
             System.out.println("SERVER SHUTDOWN INITIATED");
             System.out.println("=".repeat(80));
             System.exit(0);
-        }, configManager.getServerRunningTimeSeconds(), TimeUnit.SECONDS);
+        }, ConfigManager.getInstance().getServerRunningTimeSeconds(), TimeUnit.SECONDS);
+    }
+
+    // ordinele in asteptare ale primarului intra in motor; lichiditatea lor e deja rezervata
+    private static void promote(ReplicationStandby standby, OrderRepository orderRepository) {
+        long start = System.nanoTime();
+        List<Order> pending = standby.getPendingOrders();
+        for (Order o : pending) orderRepository.add(o);
+        OrderProcessor.resumeIdsAfter(standby.getLastOrderId());
+        ExecutionRegistry.resumeIdsAfter(standby.getLastExecutionId());
+        CancellationRegistry.resumeIdsAfter(standby.getLastCancellationId());
+        System.out.println("Standby took over " + pending.size() + " pending orders in "
+                + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    private static Checkpoint recover(BinaryJournal binaryJournal, Map<String, Instrument> instruments,
+                                      OrderRepository orderRepository) throws IOException {
+        long start = System.nanoTime();
+        Checkpoint state = binaryJournal.recover();
+
+        state.getPrices().forEach((name, price) -> {
+            Instrument inst = instruments.get(name);
+            if (inst != null && price > 0) inst.restorePrice(price);
+        });
+        state.getProfits().forEach((name, profit) -> {
+            Instrument inst = instruments.get(name);
+            if (inst != null) inst.addProfit(profit);
+        });
+        int restored = 0;
+        for (Order o : state.getPendingOrders()) {
+            Instrument inst = instruments.get(o.getInstrument());
+            if (inst == null || !inst.tryAllocate(o.getVolume())) continue;
+            orderRepository.add(o);
+            restored++;
+        }
+        OrderProcessor.resumeIdsAfter(state.getLastOrderId());
+        ExecutionRegistry.resumeIdsAfter(state.getLastExecutionId());
+        CancellationRegistry.resumeIdsAfter(state.getLastCancellationId());
+
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        System.out.println("Recovered " + (state.getCreatedMillis() > 0 ? "checkpoint of "
+                + Instant.ofEpochMilli(state.getCreatedMillis()) + " + " : "")
+                + state.getRecords() + " journal records in " + millis + " ms: "
+                + restored + " pending orders restored"
+                + (state.getCorruptRecords() > 0 ? ", " + state.getCorruptRecords() + " corrupt segment tail(s)" : ""));
+        return state;
     }
 }
\ No newline at end of file
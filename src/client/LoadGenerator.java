@@ -0,0 +1,284 @@
+package client;
+
+import utils.ConfigManager;
+import utils.LatencyHistogram;
+
+import java.io.BufferedReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// generator de sarcina in bucla deschisa: pentru fiecare rata din loadGenRates trimite ordine
+// pe loadGenConnections conexiuni, la momente fixe, indiferent cat de repede raspunde serverul.
+// Latenta e masurata fata de momentul planificat al trimiterii, nu fata de cel real,
+// ca un blocaj al serverului sa apara in percentile (coordinated omission). Ordinele inca fara
+// raspuns la sfarsitul treptei intra si ele in histograme, cu latenta masurata pana atunci.
+// Fiecare ordin e trimis ca lot de un element, ca sa primeasca mereu o confirmare (id 0 = respins).
+// Rezultatul, cate o linie per treapta, e adaugat in load_curve.csv.
+public class LoadGenerator implements Runnable {
+    private static final String CURVE_FILE = "load_curve.csv";
+    private static final long DRAIN_MILLIS = 2000;
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final String host;
+    private final int port;
+    private final ConfigManager config;
+    private final String[] instruments;
+    private final double[] prices;
+
+    public LoadGenerator(String host, int port) {
+        this.host = host;
+        this.port = port;
+        this.config = ConfigManager.getInstance();
+        String[] entries = config.getLoadGenInstruments().split(",");
+        this.instruments = new String[entries.length];
+        this.prices = new double[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            String[] p = entries[i].trim().split(":");
+            instruments[i] = p[0];
+            prices[i] = Double.parseDouble(p[1]);
+        }
+    }
+
+    // rulare separata, impotriva unui server deja pornit: java -cp out client.LoadGenerator [host] [port]
+    public static void main(String[] args) {
+        String host = args.length > 0 ? args[0] : "localhost";
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 5000;
+        new LoadGenerator(host, port).run();
+    }
+
+    @Override
+    public void run() {
+        int connections = Math.max(1, config.getLoadGenConnections());
+        long stepNanos = TimeUnit.SECONDS.toNanos(config.getLoadGenStepSeconds());
+        try {
+            // profilul e validat inainte de prima treapta
+            int[] rates = config.getLoadGenRates();
+            boolean header = !Files.exists(Path.of(CURVE_FILE));
+            try (PrintWriter curve = new PrintWriter(new FileWriter(CURVE_FILE, true))) {
+                if (header) curve.println(csvHeader());
+                for (int rate : rates) {
+                    Step step = new Step(rate, connections, stepNanos);
+                    step.run();
+                    curve.println(step.csv());
+                    curve.flush();
+                    System.out.println(step.summary());
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("Load generator failed: " + e.getMessage());
+        }
+    }
+
+    private static String csvHeader() {
+        StringBuilder sb = new StringBuilder("target_rate,connections,sent,achieved_rate,acked,rejected,unacked");
+        for (String kind : new String[]{"ack", "fill"}) {
+            if (kind.equals("fill")) sb.append(",filled,cancelled,unresolved");
+            for (double p : PERCENTILES) sb.append(',').append(kind).append("_p").append(label(p)).append("_ms");
+            sb.append(',').append(kind).append("_max_ms");
+        }
+        return sb.toString();
+    }
+
+    private static String label(double p) {
+        return p == Math.rint(p) ? String.valueOf((int) p) : String.valueOf(p).replace(".", "");
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    // o treapta a curbei: o rata tinta, conexiuni noi, histograme proprii
+    private class Step {
+        private final int rate;
+        private final int connections;
+        private final long durationNanos;
+        private final LatencyHistogram ack = new LatencyHistogram();
+        private final LatencyHistogram fill = new LatencyHistogram();
+        private final LongAdder sent = new LongAdder();
+        private final LongAdder acked = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder filled = new LongAdder();
+        private final LongAdder cancelled = new LongAdder();
+        // fara confirmare, respectiv fara FINAL, cand conexiunile s-au inchis
+        private final LongAdder unacked = new LongAdder();
+        private final LongAdder unresolved = new LongAdder();
+        private long elapsedNanos;
+
+        Step(int rate, int connections, long durationNanos) {
+            this.rate = rate;
+            this.connections = connections;
+            this.durationNanos = durationNanos;
+        }
+
+        void run() throws IOException, InterruptedException {
+            // fiecare conexiune trimite la fiecare interval, decalate intre ele
+            long interval = (long) (1e9 * connections / rate);
+            long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+            List<Socket> sockets = new ArrayList<>();
+            List<Thread> threads = new ArrayList<>();
+            for (int c = 0; c < connections; c++) {
+                Socket s = new Socket(host, port);
+                s.setTcpNoDelay(true);
+                sockets.add(s);
+                long connStart = start + interval * c / connections;
+                Connection conn = new Connection(s, connStart, interval, start + durationNanos,
+                        new Random(config.getLoadGenSeed() + c), 1_000_000 + c);
+                threads.add(start(conn::send, "loadgen-send-" + c));
+                threads.add(start(conn::receive, "loadgen-recv-" + c));
+            }
+            for (int c = 0; c < connections; c++) threads.get(2 * c).join();
+            elapsedNanos = Math.max(1, System.nanoTime() - start);
+
+            // raspunsurile intarziate mai au DRAIN_MILLIS sa ajunga, apoi conexiunile se inchid
+            Thread.sleep(DRAIN_MILLIS);
+            for (Socket s : sockets) s.close();
+            for (Thread t : threads) t.join();
+        }
+
+        private Thread start(Runnable task, String name) {
+            Thread t = new Thread(task, name);
+            t.setDaemon(true);
+            t.start();
+            return t;
+        }
+
+        String csv() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(rate).append(',').append(connections).append(',').append(sent.sum())
+                    .append(',').append(String.format(Locale.ROOT, "%.1f", sent.sum() / (elapsedNanos / 1e9)))
+                    .append(',').append(acked.sum()).append(',').append(rejected.sum())
+                    .append(',').append(unacked.sum());
+            appendPercentiles(sb, ack.snapshot());
+            sb.append(',').append(filled.sum()).append(',').append(cancelled.sum())
+                    .append(',').append(unresolved.sum());
+            appendPercentiles(sb, fill.snapshot());
+            return sb.toString();
+        }
+
+        private void appendPercentiles(StringBuilder sb, LatencyHistogram.Snapshot s) {
+            for (double p : PERCENTILES) sb.append(String.format(Locale.ROOT, ",%.4f", millis(s.percentile(p))));
+            sb.append(String.format(Locale.ROOT, ",%.4f", millis(s.getMax())));
+        }
+
+        String summary() {
+            LatencyHistogram.Snapshot a = ack.snapshot();
+            LatencyHistogram.Snapshot f = fill.snapshot();
+            return String.format(Locale.ROOT,
+                    "LOADGEN rate=%d sent=%d (%.1f/s) acked=%d rejected=%d unacked=%d"
+                            + " | ack p50=%.3fms p99=%.3fms max=%.3fms"
+                            + " | filled=%d unresolved=%d p50=%.3fms p99=%.3fms max=%.3fms",
+                    rate, sent.sum(), sent.sum() / (elapsedNanos / 1e9), acked.sum(), rejected.sum(), unacked.sum(),
+                    millis(a.percentile(50)), millis(a.percentile(99)), millis(a.getMax()),
+                    filled.sum(), unresolved.sum(),
+                    millis(f.percentile(50)), millis(f.percentile(99)), millis(f.getMax()));
+        }
+
+        private class Connection {
+            private final Socket socket;
+            private final long start;
+            private final long interval;
+            private final long end;
+            private final Random rnd;
+            private final int clientId;
+            // trimiterile facute; citit de thread-ul de receptie dupa inchiderea conexiunii
+            private volatile long sentHere;
+
+            Connection(Socket socket, long start, long interval, long end, Random rnd, int clientId) {
+                this.socket = socket;
+                this.start = start;
+                this.interval = interval;
+                this.end = end;
+                this.rnd = rnd;
+                this.clientId = clientId;
+            }
+
+            // trimiterea i e planificata la start + i * interval; daca e in urma, trimite imediat
+            void send() {
+                try {
+                    Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII);
+                    for (long i = 0; ; i++) {
+                        long intended = start + i * interval;
+                        if (intended >= end) break;
+                        long wait;
+                        while ((wait = intended - System.nanoTime()) > 0) LockSupport.parkNanos(wait);
+
+                        int inst = rnd.nextInt(instruments.length);
+                        // pret in jurul celui de referinta, ca o parte din ordine sa se execute
+                        double price = Math.round(prices[inst] * (0.95 + 0.1 * rnd.nextDouble()) * 100) / 100.0;
+                        out.write("BATCH;" + TradingBot.randomOrder(rnd, clientId, instruments[inst], price) + "\n");
+                        out.flush();
+                        sent.increment();
+                        sentHere = i + 1;
+                    }
+                } catch (IOException e) {
+                    System.err.println("Load generator send failed: " + e.getMessage());
+                }
+            }
+
+            // confirmarile vin in ordinea trimiterii, deci a k-a corespunde trimiterii k
+            void receive() {
+                Map<Integer, Long> awaitingFill = new HashMap<>();
+                long k = 0;
+                try (BufferedReader in = new BufferedReader(
+                        new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII))) {
+                    String line;
+                    while ((line = in.readLine()) != null) {
+                        long now = System.nanoTime();
+                        String[] p = line.split(",");
+                        if (p[0].equals("PENDING_BATCH")) {
+                            long intended = start + k++ * interval;
+                            ack.record(now - intended);
+                            acked.increment();
+                            int id = Integer.parseInt(p[1]);
+                            if (id == 0) rejected.increment();
+                            else awaitingFill.put(id, intended);
+                        } else if (p[0].equals("FINAL")) {
+                            Long intended = awaitingFill.remove(Integer.parseInt(p[1]));
+                            if (intended == null) continue;
+                            if (p[2].equals("EXECUTED")) {
+                                fill.record(now - intended);
+                                filled.increment();
+                            } else {
+                                cancelled.increment();
+                            }
+                        }
+                    }
+                } catch (IOException ignored) {
+                    // socket-ul e inchis la finalul treptei
+                }
+                censor(awaitingFill, k);
+            }
+
+            // ordinele ramase fara raspuns dupa DRAIN_MILLIS sunt cele mai lente: intra in histograme cu
+            // latenta de pana la inchidere (o limita inferioara), nu sunt ignorate, si sunt numarate separat
+            private void censor(Map<Integer, Long> awaitingFill, long acks) {
+                long closed = System.nanoTime();
+                for (long k = acks; k < sentHere; k++) {
+                    ack.record(closed - (start + k * interval));
+                    unacked.increment();
+                }
+                for (long intended : awaitingFill.values()) {
+                    fill.record(closed - intended);
+                    unresolved.increment();
+                }
+            }
+        }
+    }
+}
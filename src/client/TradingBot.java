@@ -8,26 +8,32 @@ public class TradingBot implements Runnable {
 
     private final int id;
     private final Random rnd = new Random();
-    private final String[] instruments = {"AAPL", "BTC", "ETH"};
+    private final String[] instruments;
+    private final int port;
 
-    public TradingBot(int id) {
+    public TradingBot(int id, String[] instruments, int port) {
         this.id = id;
+        this.instruments = instruments;
+        this.port = port;
     }
 
     @Override
     public void run() {
-        try (Socket s = new Socket("localhost", 5000);
+        try (Socket s = new Socket("localhost", port);
              PrintWriter out = new PrintWriter(s.getOutputStream(), true)) {
 
             while (!Thread.currentThread().isInterrupted()) {
                 String inst = instruments[rnd.nextInt(instruments.length)];
-                String type = rnd.nextBoolean() ? "BUY" : "SELL";
-                int vol = rnd.nextInt(10) + 1;
-                double price = 100 + rnd.nextInt(50);
-
-                out.println(id + "," + inst + "," + type + "," + vol + "," + price);
+                out.println(randomOrder(rnd, id, inst, 100 + rnd.nextInt(50)));
                 Thread.sleep(1000);
             }
         } catch (Exception ignored) {}
     }
+
+    // linie CSV cu sens si volum aleatoare, la pretul dat; folosita si de LoadGenerator
+    static String randomOrder(Random rnd, int clientId, String instrument, double price) {
+        String type = rnd.nextBoolean() ? "BUY" : "SELL";
+        int vol = rnd.nextInt(10) + 1;
+        return clientId + "," + instrument + "," + type + "," + vol + "," + price;
+    }
 }
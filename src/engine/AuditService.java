@@ -1,62 +1,64 @@
 package engine;
 
-import model.Instrument;
 import model.Order;
-import model.OrderStatus;
+import utils.ConfigManager;
 import utils.PerformanceMonitor;
 
-import java.io.FileWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.time.Instant;
+import java.util.Locale;
 import java.util.List;
-import java.util.Map;
 
+// la fiecare ciclu: un rezumat compact dintr-un snapshot consistent al motorului, scris cu o singura operatie;
+// lista completa a ordinelor PENDING (din acelasi snapshot) doar la fiecare dumpEveryCycles cicluri sau la cerere
 public class AuditService implements Runnable {
-    private static final String FILE = "audit.log";
-    private final Map<String, Instrument> instruments;
-    private final OrderRepository orderRepository;
+    private static final Path FILE = Path.of("audit.log");
+    private final EngineSnapshotter snapshotter;
+    private final int dumpEveryCycles;
+    private volatile boolean dumpRequested;
+    private volatile long cycle;
 
-    public AuditService(Map<String, Instrument> instruments, OrderRepository orderRepository) {
-        this.instruments = instruments;
-        this.orderRepository = orderRepository;
+    public AuditService(EngineSnapshotter snapshotter) {
+        this.snapshotter = snapshotter;
+        this.dumpEveryCycles = ConfigManager.getInstance().getAuditDumpEveryCycles();
     }
 
-    public synchronized void log(String msg) {
-        try (FileWriter fw = new FileWriter(FILE, true)) {
-            fw.write(msg + "\n");
-        } catch (Exception ignored) {}
+    // lista completa apare la urmatorul ciclu
+    public void requestDump() {
+        dumpRequested = true;
     }
 
     @Override
     public void run() {
         try (PerformanceMonitor.Timer timer = PerformanceMonitor.startTimer("audit_cycle")) {
-            log("\nAUDIT " + Instant.now());
+            cycle++;
+            boolean dump = dumpRequested || (dumpEveryCycles > 0 && cycle % dumpEveryCycles == 0);
+            dumpRequested = false;
+            EngineSnapshot snapshot = snapshotter.take(dump);
 
-            instruments.values().forEach(i ->
-                    log(i.getName() +
-                            " avail=" + i.available() +
-                            " profit=" + i.getProfit() +
-                            " price=" + String.format("%.2f", i.getPrice()))
-            );
-
-            List<Order> pendingOrders = orderRepository.all().stream()
-                    .filter(o -> o.getStatus() == OrderStatus.PENDING)
-                    .toList();
+            long now = snapshot.getTimestampMillis();
+            StringBuilder sb = new StringBuilder(256);
+            sb.append("\nAUDIT ").append(Instant.ofEpochMilli(now)).append(" epoch=").append(snapshot.getEpoch()).append('\n');
+            for (EngineSnapshot.InstrumentState i : snapshot.getInstruments()) {
+                sb.append(String.format(Locale.ROOT,
+                        "%s avail=%d inflight=%d profit=%.4f price=%.2f pending buy=%d/%d sell=%d/%d oldest=%s%n",
+                        i.getName(), i.getAvailable(), i.inFlightVolume(), i.getProfit(), i.getPrice(),
+                        i.getPendingBuyCount(), i.getPendingBuyVolume(),
+                        i.getPendingSellCount(), i.getPendingSellVolume(),
+                        i.getOldestPendingMillis() < 0 ? "-" : (now - i.getOldestPendingMillis()) + "ms"));
+            }
+            sb.append("Pending orders: ").append(snapshot.pendingCount()).append('\n');
 
-            if (!pendingOrders.isEmpty()) {
-                log("Pending orders: " + pendingOrders.size());
-                pendingOrders.forEach(o ->
-                        log("  Order " + o.getId() +
-                                " Client=" + o.getClientId() +
-                                " " + o.getInstrument() +
-                                " " + o.getType() +
-                                " vol=" + o.getVolume() +
-                                " price=" + String.format("%.2f", o.getLimitPrice()))
-                );
-            } else {
-                log("No pending orders");
+            if (dump) {
+                dump(sb, snapshot.getPendingOrders());
+                PerformanceMonitor.incrementCounter("audit_dumps");
             }
 
-            log("");
+            Files.writeString(FILE, sb, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
 
             PerformanceMonitor.incrementCounter("audit_cycles_completed");
         } catch (Exception e) {
@@ -64,4 +66,22 @@ public class AuditService implements Runnable {
             e.printStackTrace();
         }
     }
+
+    private void dump(StringBuilder sb, List<Order> orders) {
+        for (Order o : orders) {
+            sb.append("  Order ").append(o.getId())
+                    .append(" Client=").append(o.getClientId())
+                    .append(' ').append(o.getInstrument())
+                    .append(' ').append(o.getType())
+                    .append(" vol=").append(o.getVolume())
+                    .append(" price=").append(String.format(Locale.ROOT, "%.2f", o.getLimitPrice()))
+                    .append('\n');
+        }
+    }
+
+    // GET /audit?dump
+    public String toJson(String query) {
+        if (query != null && query.startsWith("dump")) requestDump();
+        return "{\"dumpRequested\":" + dumpRequested + ",\"cycles\":" + cycle + "}";
+    }
 }
@@ -0,0 +1,114 @@
+package engine;
+
+import model.Order;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+
+// starea motorului la sfarsitul unei epoci: toate valorile provin din acelasi moment, deci lichiditatea
+// rezervata = volumul ordinelor PENDING + volumul ordinelor acceptate care nu au ajuns inca in carte
+public class EngineSnapshot {
+    private final long epoch;
+    private final long timestampMillis;
+    private final List<InstrumentState> instruments;
+    // null daca snapshot-ul nu a cerut lista ordinelor
+    private final List<Order> pendingOrders;
+
+    EngineSnapshot(long epoch, long timestampMillis, List<InstrumentState> instruments, List<Order> pendingOrders) {
+        this.epoch = epoch;
+        this.timestampMillis = timestampMillis;
+        this.instruments = instruments;
+        this.pendingOrders = pendingOrders;
+    }
+
+    EngineSnapshot withOrders(List<Order> orders) {
+        return new EngineSnapshot(epoch, timestampMillis, instruments, orders);
+    }
+
+    public long getEpoch() { return epoch; }
+    public long getTimestampMillis() { return timestampMillis; }
+    public List<InstrumentState> getInstruments() { return instruments; }
+    public List<Order> getPendingOrders() { return pendingOrders; }
+
+    public long pendingCount() {
+        return instruments.stream().mapToLong(i -> i.pendingBuyCount + i.pendingSellCount).sum();
+    }
+
+    public String toJson() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"epoch\":").append(epoch)
+                .append(",\"timestamp\":\"").append(Instant.ofEpochMilli(timestampMillis)).append("\",\"instruments\":[");
+        for (int k = 0; k < instruments.size(); k++) {
+            InstrumentState i = instruments.get(k);
+            if (k > 0) sb.append(',');
+            sb.append(String.format(Locale.ROOT,
+                    "{\"name\":\"%s\",\"price\":%.4f,\"tick\":%d,\"available\":%d,\"inFlight\":%d,\"profit\":%.4f,"
+                            + "\"pendingBuy\":%d,\"pendingBuyVolume\":%d,\"pendingSell\":%d,\"pendingSellVolume\":%d,"
+                            + "\"oldestPendingMs\":%d}",
+                    i.name, i.price, i.tick, i.available, i.inFlightVolume(), i.profit,
+                    i.pendingBuyCount, i.pendingBuyVolume, i.pendingSellCount, i.pendingSellVolume,
+                    i.oldestPendingMillis < 0 ? -1 : timestampMillis - i.oldestPendingMillis));
+        }
+        sb.append(']');
+        if (pendingOrders != null) {
+            sb.append(",\"pendingOrders\":[");
+            for (int k = 0; k < pendingOrders.size(); k++) {
+                Order o = pendingOrders.get(k);
+                if (k > 0) sb.append(',');
+                sb.append(String.format(Locale.ROOT,
+                        "{\"id\":%d,\"client\":%d,\"instrument\":\"%s\",\"type\":\"%s\",\"volume\":%d,\"price\":%.2f}",
+                        o.getId(), o.getClientId(), o.getInstrument(), o.getType(), o.getVolume(), o.getLimitPrice()));
+            }
+            sb.append(']');
+        }
+        return sb.append('}').toString();
+    }
+
+    public static class InstrumentState {
+        private final String name;
+        private final double price;
+        private final long tick;
+        private final int maxLiquidity;
+        private final int available;
+        private final double profit;
+        private final long pendingBuyCount;
+        private final long pendingBuyVolume;
+        private final long pendingSellCount;
+        private final long pendingSellVolume;
+        // timestamp-ul celui mai vechi ordin PENDING, -1 daca nu exista
+        private final long oldestPendingMillis;
+
+        InstrumentState(String name, double price, long tick, int maxLiquidity, int available, double profit,
+                        long pendingBuyCount, long pendingBuyVolume, long pendingSellCount, long pendingSellVolume,
+                        long oldestPendingMillis) {
+            this.name = name;
+            this.price = price;
+            this.tick = tick;
+            this.maxLiquidity = maxLiquidity;
+            this.available = available;
+            this.profit = profit;
+            this.pendingBuyCount = pendingBuyCount;
+            this.pendingBuyVolume = pendingBuyVolume;
+            this.pendingSellCount = pendingSellCount;
+            this.pendingSellVolume = pendingSellVolume;
+            this.oldestPendingMillis = oldestPendingMillis;
+        }
+
+        public String getName() { return name; }
+        public double getPrice() { return price; }
+        public long getTick() { return tick; }
+        public int getAvailable() { return available; }
+        public double getProfit() { return profit; }
+        public long getPendingBuyCount() { return pendingBuyCount; }
+        public long getPendingBuyVolume() { return pendingBuyVolume; }
+        public long getPendingSellCount() { return pendingSellCount; }
+        public long getPendingSellVolume() { return pendingSellVolume; }
+        public long getOldestPendingMillis() { return oldestPendingMillis; }
+
+        // rezervat, dar inca nu in carte (ordine acceptate aflate in coada motorului)
+        public long inFlightVolume() {
+            return maxLiquidity - available - pendingBuyVolume - pendingSellVolume;
+        }
+    }
+}
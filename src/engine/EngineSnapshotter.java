@@ -0,0 +1,82 @@
+package engine;
+
+import model.Instrument;
+import model.Order;
+import model.OrderType;
+import model.PriceSnapshot;
+import utils.PerformanceMonitor;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+// snapshot-uri consistente ale motorului, fara oprirea intrarii ordinelor: pauza EpochGate acopera
+// doar citirea contoarelor per instrument; lista ordinelor, cand e ceruta, se reconstruieste dupa
+// pauza din epocile marcate pe ordine. Rulat periodic, tine ultimul snapshot pentru endpoint-ul de statistici.
+public class EngineSnapshotter implements Runnable {
+    private final Map<String, Instrument> instruments;
+    private final OrderRepository orderRepository;
+    private volatile EngineSnapshot latest;
+
+    public EngineSnapshotter(Map<String, Instrument> instruments, OrderRepository orderRepository) {
+        this.instruments = instruments;
+        this.orderRepository = orderRepository;
+    }
+
+    public synchronized EngineSnapshot take(boolean withOrders) {
+        long start = System.nanoTime();
+        if (withOrders) orderRepository.startCapture();
+        try {
+            EngineSnapshot snapshot = orderRepository.gate().pause(this::capture);
+            PerformanceMonitor.recordTiming("snapshot_pause", System.nanoTime() - start);
+            if (withOrders) {
+                List<Order> orders = orderRepository.pendingAt(snapshot.getEpoch());
+                orders.sort(Comparator.comparingInt(Order::getId));
+                snapshot = snapshot.withOrders(orders);
+            }
+            PerformanceMonitor.recordTiming("engine_snapshot", System.nanoTime() - start);
+            return snapshot;
+        } finally {
+            if (withOrders) orderRepository.stopCapture();
+        }
+    }
+
+    // ruleaza cu poarta inchisa: doar citiri O(1) per instrument
+    private EngineSnapshot capture(long epoch) {
+        List<EngineSnapshot.InstrumentState> states = new ArrayList<>(instruments.size());
+        for (Instrument i : instruments.values()) {
+            String name = i.getName();
+            PriceSnapshot market = i.snapshot();
+            Order oldest = orderRepository.oldestPending(name);
+            states.add(new EngineSnapshot.InstrumentState(name, market.getPrice(), market.getSequence(),
+                    i.getMaxLiquidity(), i.available(), i.getProfit(),
+                    orderRepository.pendingCount(name, OrderType.BUY),
+                    orderRepository.pendingVolume(name, OrderType.BUY),
+                    orderRepository.pendingCount(name, OrderType.SELL),
+                    orderRepository.pendingVolume(name, OrderType.SELL),
+                    oldest == null ? -1 : oldest.getTimestamp().toEpochMilli()));
+        }
+        return new EngineSnapshot(epoch, System.currentTimeMillis(), states, null);
+    }
+
+    @Override
+    public void run() {
+        try {
+            latest = take(false);
+        } catch (Exception e) {
+            PerformanceMonitor.incrementCounter("snapshot_errors");
+            e.printStackTrace();
+        }
+    }
+
+    public EngineSnapshot latest() {
+        EngineSnapshot s = latest;
+        return s != null ? s : take(false);
+    }
+
+    // GET /snapshot (ultimul snapshot periodic) sau /snapshot?orders (unul nou, cu ordinele PENDING)
+    public String toJson(String query) {
+        return (query != null && query.startsWith("orders") ? take(true) : latest()).toJson();
+    }
+}
@@ -0,0 +1,74 @@
+package engine;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongFunction;
+
+// delimiteaza modificarile de stare (rezervare lichiditate, adaugare, executie, anulare) ca un
+// snapshot sa vada doar tranzitii complete: pause() opreste intrarile noi, asteapta sa se termine
+// cele in curs, citeste starea si trece la epoca urmatoare. Intrarea e doua operatii atomice pe un
+// contor al thread-ului curent (pe stripe-uri, in linii de cache separate), fara contor global.
+// Sectiunile nu se imbrica: un thread aflat intr-o sectiune nu apeleaza enter() din nou.
+public class EpochGate {
+    private static final int STRIPES = stripeCount();
+    private static final int PAD = 8;
+    private static final int SPINS_BEFORE_YIELD = 100;
+
+    private final AtomicLongArray active = new AtomicLongArray(STRIPES * PAD);
+    private volatile boolean closed;
+    private volatile long epoch;
+
+    // intoarce epoca in care are loc modificarea
+    public long enter() {
+        int slot = slot();
+        while (true) {
+            waitWhileClosed();
+            active.incrementAndGet(slot);
+            if (!closed) return epoch;
+            active.decrementAndGet(slot);
+        }
+    }
+
+    public void exit() {
+        active.decrementAndGet(slot());
+    }
+
+    public long epoch() {
+        return epoch;
+    }
+
+    // capture vede starea de la sfarsitul epocii date; modificarile ulterioare apartin epocii urmatoare
+    public synchronized <T> T pause(LongFunction<T> capture) {
+        closed = true;
+        try {
+            for (int i = 0; i < STRIPES; i++) {
+                int spins = 0;
+                while (active.get(i * PAD) != 0) spin(++spins);
+            }
+            T result = capture.apply(epoch);
+            epoch++;
+            return result;
+        } finally {
+            closed = false;
+        }
+    }
+
+    private void waitWhileClosed() {
+        int spins = 0;
+        while (closed) spin(++spins);
+    }
+
+    private static void spin(int spins) {
+        if (spins < SPINS_BEFORE_YIELD) Thread.onSpinWait();
+        else Thread.yield();
+    }
+
+    private static int slot() {
+        return ((int) (Thread.currentThread().getId() * 0x9E3779B97F4A7C15L >>> 32) & (STRIPES - 1)) * PAD;
+    }
+
+    private static int stripeCount() {
+        int n = 1;
+        while (n < Math.min(64, Runtime.getRuntime().availableProcessors() * 2)) n <<= 1;
+        return n;
+    }
+}
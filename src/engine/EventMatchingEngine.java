@@ -0,0 +1,108 @@
+package engine;
+
+import model.Instrument;
+import model.Order;
+import utils.PerformanceMonitor;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// un singur thread de matching per instrument, alimentat printr-un OrderRingBuffer
+public class EventMatchingEngine implements OrderIntake {
+    private static final int SPINS_BEFORE_PARK = 200;
+
+    private final MatchingEngine matchingEngine;
+    private final OrderRepository orderRepository;
+    private final Map<String, InstrumentMatcher> matchers = new HashMap<>();
+    private final long priceIntervalNanos;
+
+    public EventMatchingEngine(MatchingEngine matchingEngine, OrderRepository orderRepository,
+                               Map<String, Instrument> instruments, int ringBufferSize,
+                               long priceIntervalMillis) {
+        this.matchingEngine = matchingEngine;
+        this.orderRepository = orderRepository;
+        this.priceIntervalNanos = TimeUnit.MILLISECONDS.toNanos(priceIntervalMillis);
+        instruments.values().forEach(i ->
+                matchers.put(i.getName(), new InstrumentMatcher(i, new OrderRingBuffer(ringBufferSize))));
+    }
+
+    public void start() {
+        matchers.values().forEach(m -> {
+            Thread t = new Thread(m, "matcher-" + m.instrument.getName());
+            t.setDaemon(true);
+            m.thread = t;
+            t.start();
+        });
+    }
+
+    public void stop() {
+        matchers.values().forEach(m -> {
+            m.running = false;
+            LockSupport.unpark(m.thread);
+        });
+    }
+
+    @Override
+    public void submit(Order o) {
+        InstrumentMatcher m = matchers.get(o.getInstrument());
+        m.buffer.publish(o);
+        if (m.sleeping) LockSupport.unpark(m.thread);
+    }
+
+    private class InstrumentMatcher implements Runnable {
+        private final Instrument instrument;
+        private final OrderRingBuffer buffer;
+        private final Random rnd = new Random();
+        private volatile Thread thread;
+        private volatile boolean sleeping;
+        private volatile boolean running = true;
+
+        InstrumentMatcher(Instrument instrument, OrderRingBuffer buffer) {
+            this.instrument = instrument;
+            this.buffer = buffer;
+        }
+
+        @Override
+        public void run() {
+            long nextPriceUpdate = System.nanoTime() + priceIntervalNanos;
+            int idle = 0;
+            while (running) {
+                try {
+                    Order o = buffer.poll();
+                    if (o != null) {
+                        idle = 0;
+                        // ordinul nou e evaluat imediat la pretul curent
+                        orderRepository.add(o);
+                        matchingEngine.match(instrument);
+                        continue;
+                    }
+
+                    long now = System.nanoTime();
+                    if (now >= nextPriceUpdate) {
+                        try (PerformanceMonitor.Timer timer = PerformanceMonitor.startTimer("matching_price_tick")) {
+                            matchingEngine.updatePrice(instrument, rnd);
+                            matchingEngine.match(instrument);
+                        }
+                        nextPriceUpdate = now + priceIntervalNanos;
+                        continue;
+                    }
+
+                    if (++idle < SPINS_BEFORE_PARK) {
+                        Thread.onSpinWait();
+                        continue;
+                    }
+                    sleeping = true;
+                    if (buffer.isEmpty()) LockSupport.parkNanos(nextPriceUpdate - now);
+                    sleeping = false;
+                    idle = 0;
+                } catch (Exception e) {
+                    PerformanceMonitor.incrementCounter("matching_engine_errors");
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package engine;
+
+import model.Order;
+import model.OrderStatus;
+import utils.PerformanceMonitor;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+public class ExpiryWheel implements Runnable {
+    private static final int MAX_WHEEL_SIZE = 1 << 16;
+
+    private final long tickMillis;
+    private final long expiryMillis;
+    private final int mask;
+    private final Queue<Entry>[] buckets;
+    // ordinele noi sunt puse in roata doar de thread-ul rotii
+    private final Queue<Entry> incoming = new ConcurrentLinkedQueue<>();
+    private volatile Consumer<Order> onExpire;
+    private volatile boolean running;
+    private long startMillis;
+    private long tick;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public ExpiryWheel(long tickMillis, long expiryMillis) {
+        if (tickMillis <= 0) throw new IllegalArgumentException("expiryTickMillis must be positive: " + tickMillis);
+        this.tickMillis = tickMillis;
+        this.expiryMillis = expiryMillis;
+        // roata acopera intreg timpul de expirare, deci fiecare ordin e vizitat o singura data
+        int size = 1;
+        while (size < MAX_WHEEL_SIZE && size <= expiryMillis / tickMillis) size <<= 1;
+        this.mask = size - 1;
+        this.buckets = new Queue[size];
+        for (int i = 0; i < size; i++) buckets[i] = new ArrayDeque<>();
+    }
+
+    public void schedule(Order o) {
+        incoming.add(new Entry(o, o.getTimestamp().toEpochMilli() + expiryMillis));
+    }
+
+    public void start(Consumer<Order> onExpire) {
+        this.onExpire = onExpire;
+        this.startMillis = System.currentTimeMillis();
+        this.running = true;
+        Thread t = new Thread(this, "expiry-wheel");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            long next = startMillis + (tick + 1) * tickMillis;
+            long sleep = next - System.currentTimeMillis();
+            if (sleep > 0) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(sleep));
+                continue;
+            }
+            try {
+                transferIncoming();
+                expire(buckets[(int) (tick & mask)]);
+            } catch (Exception e) {
+                PerformanceMonitor.incrementCounter("expiry_wheel_errors");
+                e.printStackTrace();
+            }
+            tick++;
+        }
+    }
+
+    private void transferIncoming() {
+        Entry e;
+        while ((e = incoming.poll()) != null) {
+            long target = Math.max((e.deadlineMillis - startMillis) / tickMillis, tick);
+            e.deadlineTick = target;
+            buckets[(int) (target & mask)].add(e);
+        }
+    }
+
+    private void expire(Queue<Entry> bucket) {
+        long now = System.currentTimeMillis();
+        Iterator<Entry> it = bucket.iterator();
+        while (it.hasNext()) {
+            Entry e = it.next();
+            if (e.deadlineTick > tick) continue;
+            it.remove();
+            if (e.order.getStatus() != OrderStatus.PENDING) continue;
+            onExpire.accept(e.order);
+            PerformanceMonitor.recordTiming("order_expiry_lag",
+                    TimeUnit.MILLISECONDS.toNanos(Math.max(0, now - e.deadlineMillis)));
+        }
+    }
+
+    private static class Entry {
+        private final Order order;
+        private final long deadlineMillis;
+        private long deadlineTick;
+
+        Entry(Order order, long deadlineMillis) {
+            this.order = order;
+            this.deadlineMillis = deadlineMillis;
+        }
+    }
+}
@@ -9,8 +9,6 @@ import persistence.ExecutionRegistry;
 import utils.ConfigManager;
 import utils.PerformanceMonitor;
 
-import java.time.Duration;
-import java.time.Instant;
 import java.util.Map;
 import java.util.Random;
 
@@ -20,17 +18,20 @@ public class MatchingEngine implements Runnable {
     private final Map<String, Instrument> instruments;
     private final ExecutionRegistry executionRegistry;
     private final CancellationRegistry cancellationRegistry;
+    private final PnlLedger ledger;
     private final Random rnd = new Random();
     private final ConfigManager configManager;
 
     public MatchingEngine(OrderRepository orderRepository,
                           Map<String, Instrument> instruments,
                           ExecutionRegistry executionRegistry,
-                          CancellationRegistry cancellationRegistry) {
+                          CancellationRegistry cancellationRegistry,
+                          PnlLedger ledger) {
         this.orderRepository = orderRepository;
         this.instruments = instruments;
         this.executionRegistry = executionRegistry;
         this.cancellationRegistry = cancellationRegistry;
+        this.ledger = ledger;
         this.configManager=ConfigManager.getInstance();
     }
 
@@ -38,21 +39,11 @@ public class MatchingEngine implements Runnable {
     public void run() {
         try(PerformanceMonitor.Timer timer=PerformanceMonitor.startTimer("matching_engine_cycle")){
             long startPriceUpdate = System.nanoTime();
-            instruments.values().forEach(i -> i.updatePrice(configManager.getMu(), configManager.getSigma(), configManager.getDt(), rnd));
+            instruments.values().forEach(i -> updatePrice(i, rnd));
             long endPriceUpdate = System.nanoTime();
             PerformanceMonitor.recordTiming("price_update", endPriceUpdate - startPriceUpdate);
 
-            Instant now = Instant.now();
-
-            for (Order o : orderRepository.all()) {
-                if (o.getStatus() != OrderStatus.PENDING) continue;
-
-                Instrument inst = instruments.get(o.getInstrument());
-                long age = Duration.between(o.getTimestamp(), now).getSeconds();
-
-                if (age > configManager.getOrderExpTimeSeconds()) cancel(o, inst);
-                else if (canExecute(o, inst)) execute(o, inst);
-            }
+            instruments.values().forEach(this::match);
 
             PerformanceMonitor.incrementCounter("matching_cycles_completed");
         } catch (Exception e) {
@@ -61,9 +52,29 @@ public class MatchingEngine implements Runnable {
         }
     }
 
-    private boolean canExecute(Order o, Instrument i) {
+    void updatePrice(Instrument i, Random rnd) {
+        i.updatePrice(configManager.getMu(), configManager.getSigma(), configManager.getDt(), rnd);
+    }
+
+    void match(Instrument inst) {
+        OrderBook book = orderRepository.book(inst.getName());
+        if (book == null) return;
+
+        // un singur pret pe ciclu: toate ordinele sunt comparate si executate la acelasi tick
+        double price = inst.getPrice();
+        Order o;
+        // se parcurge doar prefixul din carte care traverseaza noul pret
+        while ((o = book.bestBid()) != null && canExecute(o, price)) execute(o, inst, price);
+        while ((o = book.bestAsk()) != null && canExecute(o, price)) execute(o, inst, price);
+    }
+
+    // apelat de ExpiryWheel cand ordinul atinge termenul de expirare
+    public void expire(Order o) {
+        cancel(o, instruments.get(o.getInstrument()));
+    }
+
+    private boolean canExecute(Order o, double p) {
         long startCheck = System.nanoTime();
-        double p = i.getPrice();
         boolean result = (o.getType() == OrderType.BUY && p <= o.getLimitPrice()) ||
                 (o.getType() == OrderType.SELL && p >= o.getLimitPrice());
         long endCheck = System.nanoTime();
@@ -71,19 +82,30 @@ public class MatchingEngine implements Runnable {
         return result;
     }
 
-    private void execute(Order o, Instrument i) {
+    private void execute(Order o, Instrument i, double price) {
         long startExecution = System.nanoTime();
-        o.setStatus(OrderStatus.EXECUTED);
-        i.release(o.getVolume());
-
-        long startCommission = System.nanoTime();
-        double value = o.getVolume() * i.getPrice();
+        double value = o.getVolume() * price;
         double commission = value * configManager.getCommission() / 100.0;
-        i.addProfit(commission);
-        long endCommission = System.nanoTime();
-        PerformanceMonitor.recordTiming("commission_calculation", endCommission - startCommission);
-
+        // eliberarea lichiditatii, profitul si retragerea ordinului apar impreuna intr-un snapshot
+        EpochGate gate = orderRepository.gate();
+        gate.enter();
+        try {
+            if (!o.compareAndSetStatus(OrderStatus.PENDING, OrderStatus.EXECUTED)) return;
+            i.release(o.getVolume());
+
+            long startCommission = System.nanoTime();
+            i.addProfit(commission);
+            ledger.recordExecution(o, value, commission);
+            long endCommission = System.nanoTime();
+            PerformanceMonitor.recordTiming("commission_calculation", endCommission - startCommission);
+            orderRepository.retire(o);
+        } finally {
+            gate.exit();
+        }
+        // callback-urile viitorului (raspunsul, registrul) ruleaza pe acest thread: in afara sectiunii,
+        // ca sa nu intarzie un snapshot; starea ordinului e deja retrasa mai sus
         o.getFuture().complete(OrderStatus.EXECUTED);
+        PerformanceMonitor.recordTiming("order_to_execution", System.nanoTime() - o.getCreatedNanos());
 
         long startRegistry = System.nanoTime();
         executionRegistry.logExecution(o.getId(), o.getVolume(), value, commission);
@@ -98,8 +120,16 @@ public class MatchingEngine implements Runnable {
     private void cancel(Order o, Instrument i) {
         long startCancel = System.nanoTime();
 
-        o.setStatus(OrderStatus.CANCELLED);
-        i.release(o.getVolume());
+        EpochGate gate = orderRepository.gate();
+        gate.enter();
+        try {
+            if (!o.compareAndSetStatus(OrderStatus.PENDING, OrderStatus.CANCELLED)) return;
+            i.release(o.getVolume());
+            ledger.recordCancellation(o);
+            orderRepository.retire(o);
+        } finally {
+            gate.exit();
+        }
         o.getFuture().complete(OrderStatus.CANCELLED);
 
         cancellationRegistry.logCancellation(o.getId(), "Order expired after " + configManager.getOrderExpTimeSeconds() + " seconds");
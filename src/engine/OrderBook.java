@@ -0,0 +1,64 @@
+package engine;
+
+import model.Order;
+import model.OrderStatus;
+import model.OrderType;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+public class OrderBook {
+    // BUY: cel mai mare pret limita primul, SELL: cel mai mic pret limita primul
+    private static final Comparator<Order> BUY_ORDER =
+            Comparator.comparingDouble(Order::getLimitPrice).reversed().thenComparingInt(Order::getId);
+    private static final Comparator<Order> SELL_ORDER =
+            Comparator.comparingDouble(Order::getLimitPrice).thenComparingInt(Order::getId);
+
+    private final String instrument;
+    private final NavigableSet<Order> bids = new ConcurrentSkipListSet<>(BUY_ORDER);
+    private final NavigableSet<Order> asks = new ConcurrentSkipListSet<>(SELL_ORDER);
+
+    public OrderBook(String instrument) {
+        this.instrument = instrument;
+    }
+
+    public String getInstrument() { return instrument; }
+
+    public void add(Order o) {
+        side(o.getType()).add(o);
+    }
+
+    public void remove(Order o) {
+        side(o.getType()).remove(o);
+    }
+
+    // ordinul BUY cu pretul limita cel mai mare, sau null
+    public Order bestBid() {
+        return first(bids);
+    }
+
+    // ordinul SELL cu pretul limita cel mai mic, sau null
+    public Order bestAsk() {
+        return first(asks);
+    }
+
+    public int size() {
+        return bids.size() + asks.size();
+    }
+
+    private NavigableSet<Order> side(OrderType type) {
+        return type == OrderType.BUY ? bids : asks;
+    }
+
+    private static Order first(NavigableSet<Order> side) {
+        Iterator<Order> it = side.iterator();
+        while (it.hasNext()) {
+            Order o = it.next();
+            if (o.getStatus() == OrderStatus.PENDING) return o;
+            it.remove();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,9 @@
+package engine;
+
+import model.Order;
+
+// punctul prin care ClientHandler preda ordinele acceptate motorului
+@FunctionalInterface
+public interface OrderIntake {
+    void submit(Order o);
+}
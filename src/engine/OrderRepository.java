@@ -1,18 +1,186 @@
 package engine;
 
 import model.Order;
+import model.OrderStatus;
+import model.OrderType;
+import utils.ConfigManager;
+import utils.PerformanceMonitor;
 
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
 
 public class OrderRepository {
-    private final List<Order> orders = new CopyOnWriteArrayList<>();
+    private final Map<String, Shard> shards = new ConcurrentHashMap<>();
+    // toate ordinele PENDING dupa id, ca get sa nu caute prin fiecare instrument
+    private final Map<Integer, Order> byId = new ConcurrentHashMap<>();
+    private final ExpiryWheel expiryWheel;
+    private final Map<Integer, Order> archive;
+    private final int archiveSize;
+    private final EpochGate gate = new EpochGate();
+    // ordinele retrase cat timp un snapshot isi construieste lista de ordine, altfel null
+    private volatile Queue<Order> retiredCapture;
+
+    private final Collection<Order> pendingView = new AbstractCollection<>() {
+        @Override
+        public Iterator<Order> iterator() {
+            return shards.values().stream()
+                    .flatMap(s -> s.pending.values().stream())
+                    .iterator();
+        }
+
+        @Override
+        public int size() {
+            return shards.values().stream().mapToInt(s -> s.pending.size()).sum();
+        }
+    };
+
+    public OrderRepository(ExpiryWheel expiryWheel) {
+        this(expiryWheel, ConfigManager.getInstance().getOrderArchiveSize());
+    }
+
+    public OrderRepository(ExpiryWheel expiryWheel, int archiveSize) {
+        this.expiryWheel = expiryWheel;
+        this.archiveSize = archiveSize;
+        this.archive = Collections.synchronizedMap(new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Order> eldest) {
+                return size() > OrderRepository.this.archiveSize;
+            }
+        });
+    }
 
     public void add(Order o) {
-        orders.add(o);
+        Shard shard = shards.computeIfAbsent(o.getInstrument(), Shard::new);
+        o.setAddedEpoch(gate.enter());
+        try {
+            shard.pending.put(o.getId(), o);
+            byId.put(o.getId(), o);
+            shard.book.add(o);
+            shard.arrivals.add(o);
+            int side = o.getType().ordinal();
+            shard.count[side].increment();
+            shard.volume[side].add(o.getVolume());
+            // ordinul iese din repository odata cu statusul final (vezi retire); daca a fost deja
+            // finalizat de alt thread, retragerea ruleaza aici, tot in sectiune
+            if (o.getStatus() != OrderStatus.PENDING) retire(shard, o);
+        } finally {
+            gate.exit();
+        }
+        expiryWheel.schedule(o);
+    }
+
+    public EpochGate gate() {
+        return gate;
     }
 
-    public List<Order> all() {
-        return orders;
+    public Order get(int orderId) {
+        Order o = byId.get(orderId);
+        return o != null ? o : archive.get(orderId);
+    }
+
+    // ordinele PENDING din toate instrumentele; view live, nu copie
+    public Collection<Order> pending() {
+        return pendingView;
+    }
+
+    public Collection<Order> pending(String instrument) {
+        Shard shard = shards.get(instrument);
+        return shard == null ? Collections.emptyList() : Collections.unmodifiableCollection(shard.pending.values());
+    }
+
+    public OrderBook book(String instrument) {
+        Shard shard = shards.get(instrument);
+        return shard == null ? null : shard.book;
+    }
+
+    // ordinele PENDING la sfarsitul epocii date, construite fara pauza: cele inca in repository
+    // plus cele retrase intre timp (colectate din momentul in care incepe snapshot-ul)
+    List<Order> pendingAt(long epoch) {
+        Map<Integer, Order> result = new LinkedHashMap<>();
+        for (Order o : pendingView) {
+            if (o.isPendingAt(epoch)) result.put(o.getId(), o);
+        }
+        for (Order o : retiredCapture) {
+            if (o.isPendingAt(epoch)) result.putIfAbsent(o.getId(), o);
+        }
+        return new ArrayList<>(result.values());
+    }
+
+    void startCapture() {
+        retiredCapture = new ConcurrentLinkedQueue<>();
+    }
+
+    void stopCapture() {
+        retiredCapture = null;
+    }
+
+    // agregate tinute la zi la adaugare si la retragere, fara parcurgerea ordinelor
+    public long pendingCount(String instrument, OrderType side) {
+        Shard shard = shards.get(instrument);
+        return shard == null ? 0 : shard.count[side.ordinal()].sum();
+    }
+
+    public long pendingVolume(String instrument, OrderType side) {
+        Shard shard = shards.get(instrument);
+        return shard == null ? 0 : shard.volume[side.ordinal()].sum();
+    }
+
+    // cel mai vechi ordin inca PENDING, sau null; ordinele sosesc in ordine, deci se
+    // scot doar cele finalizate din capul cozii (amortizat O(1))
+    public Order oldestPending(String instrument) {
+        Shard shard = shards.get(instrument);
+        if (shard == null) return null;
+        synchronized (shard.arrivals) {
+            Order o;
+            while ((o = shard.arrivals.peek()) != null && o.getStatus() != OrderStatus.PENDING) {
+                shard.arrivals.poll();
+            }
+            return o;
+        }
+    }
+
+    // apelat de executie/anulare in aceeasi sectiune EpochGate in care ordinul primeste statusul final,
+    // ca un snapshot sa vada lichiditatea eliberata doar impreuna cu ordinul retras
+    void retire(Order o) {
+        Shard shard = shards.get(o.getInstrument());
+        if (shard != null) retire(shard, o);
+    }
+
+    private void retire(Shard shard, Order o) {
+        if (shard.pending.remove(o.getId()) == null) return;
+        o.setRetiredEpoch(gate.epoch());
+        Queue<Order> capture = retiredCapture;
+        if (capture != null) capture.add(o);
+        shard.book.remove(o);
+        int side = o.getType().ordinal();
+        shard.count[side].decrement();
+        shard.volume[side].add(-o.getVolume());
+        // arhivat inainte de scoaterea din index, ca get sa il gaseasca tot timpul
+        if (archiveSize > 0) archive.put(o.getId(), o);
+        byId.remove(o.getId());
+        PerformanceMonitor.incrementCounter("orders_retired");
+    }
+
+    private static class Shard {
+        private final Map<Integer, Order> pending = new ConcurrentHashMap<>();
+        private final OrderBook book;
+        private final Queue<Order> arrivals = new ConcurrentLinkedQueue<>();
+        // indexate dupa OrderType.ordinal()
+        private final LongAdder[] count = {new LongAdder(), new LongAdder()};
+        private final LongAdder[] volume = {new LongAdder(), new LongAdder()};
+
+        Shard(String instrument) {
+            this.book = new OrderBook(instrument);
+        }
     }
 }
@@ -0,0 +1,52 @@
+package engine;
+
+import model.Order;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// buffer circular prealocat, mai multi producatori si un singur consumator, fara lock-uri
+public class OrderRingBuffer {
+    private final Order[] slots;
+    private final AtomicLongArray published;
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong(0);
+    private volatile long consumed = 0;
+
+    public OrderRingBuffer(int capacity) {
+        int size = 1;
+        while (size < capacity) size <<= 1;
+        this.slots = new Order[size];
+        this.published = new AtomicLongArray(size);
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) published.set(i, -1);
+    }
+
+    public void publish(Order o) {
+        long seq = claimed.getAndIncrement();
+        // buffer plin: producatorul asteapta consumatorul
+        while (seq - consumed >= slots.length) Thread.onSpinWait();
+        int idx = (int) (seq & mask);
+        slots[idx] = o;
+        published.set(idx, seq);
+    }
+
+    // apelat doar de thread-ul consumator
+    public Order poll() {
+        long seq = consumed;
+        int idx = (int) (seq & mask);
+        if (published.get(idx) != seq) return null;
+        Order o = slots[idx];
+        slots[idx] = null;
+        consumed = seq + 1;
+        return o;
+    }
+
+    public boolean isEmpty() {
+        return published.get((int) (consumed & mask)) != consumed;
+    }
+
+    public int capacity() {
+        return slots.length;
+    }
+}
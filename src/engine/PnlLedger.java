@@ -0,0 +1,121 @@
+package engine;
+
+import model.Order;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+// rezultatele tranzactionarii in memorie, per client si per instrument, actualizate la fiecare
+// executie si anulare; interogarea unui client sau instrument e o singura cautare in map
+public class PnlLedger {
+    private final Map<Integer, Account> clients = new ConcurrentHashMap<>();
+    private final Map<String, Account> instruments = new ConcurrentHashMap<>();
+
+    public void recordExecution(Order o, double notional, double commission) {
+        clientAccount(o.getClientId()).execution(o.getVolume(), notional, commission);
+        instrumentAccount(o.getInstrument()).execution(o.getVolume(), notional, commission);
+    }
+
+    public void recordCancellation(Order o) {
+        clientAccount(o.getClientId()).cancels.increment();
+        instrumentAccount(o.getInstrument()).cancels.increment();
+    }
+
+    public Account client(int clientId) {
+        return clients.get(clientId);
+    }
+
+    public Account instrument(String name) {
+        return instruments.get(name);
+    }
+
+    public Map<Integer, Account> clients() {
+        return clients;
+    }
+
+    public Map<String, Account> instruments() {
+        return instruments;
+    }
+
+    // GET /ledger?client=N, /ledger?instrument=NUME sau /ledger pentru toate conturile
+    public String toJson(String query) {
+        if (query != null && query.startsWith("client=")) {
+            try {
+                int id = Integer.parseInt(query.substring("client=".length()));
+                return account("client", String.valueOf(id), clients.get(id));
+            } catch (NumberFormatException e) {
+                return "{\"error\":\"invalid client\"}";
+            }
+        }
+        if (query != null && query.startsWith("instrument=")) {
+            String name = query.substring("instrument=".length());
+            return account("instrument", quote(name), instruments.get(name));
+        }
+        StringBuilder sb = new StringBuilder("{\"clients\":[");
+        String sep = "";
+        for (Map.Entry<Integer, Account> e : clients.entrySet()) {
+            sb.append(sep).append(account("client", String.valueOf(e.getKey()), e.getValue()));
+            sep = ",";
+        }
+        sb.append("],\"instruments\":[");
+        sep = "";
+        for (Map.Entry<String, Account> e : instruments.entrySet()) {
+            sb.append(sep).append(account("instrument", quote(e.getKey()), e.getValue()));
+            sep = ",";
+        }
+        return sb.append("]}").toString();
+    }
+
+    private static String account(String kind, String key, Account a) {
+        if (a == null) a = new Account();
+        return String.format(Locale.ROOT,
+                "{\"%s\":%s,\"volume\":%d,\"notional\":%.2f,\"commission\":%.4f,\"fills\":%d,\"cancels\":%d}",
+                kind, key, a.getVolume(), a.getNotional(), a.getCommission(), a.getFills(), a.getCancels());
+    }
+
+    // numele vine din query string (deja decodat), deci e pus in JSON ca sir escapat
+    private static String quote(String s) {
+        StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') sb.append('\\').append(c);
+            else if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+            else sb.append(c);
+        }
+        return sb.append('"').toString();
+    }
+
+    private Account clientAccount(int clientId) {
+        Account a = clients.get(clientId);
+        return a != null ? a : clients.computeIfAbsent(clientId, k -> new Account());
+    }
+
+    private Account instrumentAccount(String name) {
+        Account a = instruments.get(name);
+        return a != null ? a : instruments.computeIfAbsent(name, k -> new Account());
+    }
+
+    public static class Account {
+        private final LongAdder volume = new LongAdder();
+        private final DoubleAdder notional = new DoubleAdder();
+        private final DoubleAdder commission = new DoubleAdder();
+        private final LongAdder fills = new LongAdder();
+        private final LongAdder cancels = new LongAdder();
+
+        private void execution(int vol, double value, double comm) {
+            volume.add(vol);
+            notional.add(value);
+            commission.add(comm);
+            fills.increment();
+        }
+
+        public long getVolume() { return volume.sum(); }
+        public double getNotional() { return notional.sum(); }
+        public double getCommission() { return commission.sum(); }
+        public long getFills() { return fills.sum(); }
+        public long getCancels() { return cancels.sum(); }
+    }
+}
@@ -2,55 +2,160 @@ package model;
 
 import java.util.Random;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.DoubleAdder;
 
 public class Instrument {
+    // lichiditatea libera e impartita pe stripe-uri (cate unul pe grup de thread-uri) si un pool central;
+    // used + pool + suma stripe-urilor == maxLiquidity in orice moment in afara unei rebalansari
+    private static final int STRIPES = stripeCount();
+    // un stripe per linie de cache (16 int-uri = 64 bytes)
+    private static final int PAD = 16;
+
+    private final int id;
     private final String name;
     private final int maxLiquidity;
-    private final AtomicInteger used = new AtomicInteger(0);
-    private double price;
-    private double profit = 0.0;
+    private final AtomicIntegerArray free = new AtomicIntegerArray(STRIPES * PAD);
+    private final AtomicInteger pool;
+    // cat ia un stripe din pool la o realimentare
+    private final int chunk;
+    // versiune impara cat timp o rebalansare muta lichiditate intre stripe-uri (seqlock pentru available)
+    private final AtomicLong version = new AtomicLong();
+    private final Object rebalanceLock = new Object();
+    // pretul, numarul tick-ului si momentul lui, citite fara lock-uri
+    private final AtomicReference<PriceSnapshot> market;
+    private final DoubleAdder profit = new DoubleAdder();
 
-    public Instrument(String name, int maxLiquidity, double price) {
+    public Instrument(int id, String name, int maxLiquidity, double price) {
+        this.id = id;
         this.name = name;
         this.maxLiquidity = maxLiquidity;
-        this.price = price;
+        this.market = new AtomicReference<>(new PriceSnapshot(price, 0, System.currentTimeMillis()));
+        this.pool = new AtomicInteger(maxLiquidity);
+        this.chunk = Math.max(1, maxLiquidity / (STRIPES * 4));
     }
 
     public boolean tryAllocate(int volume) {
+        int slot = stripe() * PAD;
+        // calea rapida: doar stripe-ul propriu, fara competitie cu alte nuclee
         while (true) {
-            int current = used.get();
-            //daca se depaseste lichiditatea maxima
-            if (current + volume > maxLiquidity) return false;
-            // daca valoarea used!=current inseamna ca alt client a modificat valoare asa ca va da fail si
-            // se va face retry prin while
-            if (used.compareAndSet(current, current + volume)) return true;
+            int current = free.get(slot);
+            if (current < volume) break;
+            if (free.compareAndSet(slot, current, current - volume)) return true;
+        }
+        // respingere fara lock cand toata lichiditatea libera nu ajunge
+        int seen = readAvailable();
+        if (volume > maxLiquidity || (seen >= 0 && volume > seen)) return false;
+        return rebalance(slot, volume);
+    }
+
+    // aduna lichiditate din stripe-ul propriu, din pool si, la nevoie, din celelalte stripe-uri;
+    // surplusul ramane in stripe-ul propriu, iar la esec totul se intoarce in pool
+    private boolean rebalance(int slot, int volume) {
+        synchronized (rebalanceLock) {
+            version.incrementAndGet();
+            try {
+                int got = free.getAndSet(slot, 0);
+                got += takeFromPool(volume - got + chunk);
+                for (int i = 0; i < STRIPES && got < volume; i++) {
+                    if (i * PAD != slot) got += free.getAndSet(i * PAD, 0);
+                }
+                if (got >= volume) {
+                    free.addAndGet(slot, got - volume);
+                    return true;
+                }
+                pool.addAndGet(got);
+                return false;
+            } finally {
+                version.incrementAndGet();
+            }
         }
     }
 
+    private int takeFromPool(int wanted) {
+        while (true) {
+            int p = pool.get();
+            int taken = Math.min(p, wanted);
+            if (pool.compareAndSet(p, p - taken)) return taken;
+        }
+    }
+
+    // stripe-ul propriu pastreaza pana la 2 * chunk, restul merge in pool pentru celelalte thread-uri
     public void release(int volume) {
-        used.addAndGet(-volume);
+        int slot = stripe() * PAD;
+        while (true) {
+            int current = free.get(slot);
+            int keep = Math.min(volume, 2 * chunk - current);
+            if (keep <= 0) break;
+            if (free.compareAndSet(slot, current, current + keep)) {
+                volume -= keep;
+                break;
+            }
+        }
+        if (volume > 0) pool.addAndGet(volume);
+    }
+    public void updatePrice(double mu, double sigma, double dt, Random rnd) {
+        double delta = mu * dt + sigma * Math.sqrt(dt) * rnd.nextGaussian();
+        while (true) {
+            PriceSnapshot current = market.get();
+            PriceSnapshot next = new PriceSnapshot(current.getPrice() + delta, current.getSequence() + 1,
+                    System.currentTimeMillis());
+            if (market.compareAndSet(current, next)) return;
+        }
     }
 
-    public synchronized void updatePrice(double mu, double sigma, double dt, Random rnd) {
-        double epsilon = rnd.nextGaussian();
-        price += mu * dt + sigma * Math.sqrt(dt) * epsilon;
+    // pret, tick si timestamp consistente intre ele
+    public PriceSnapshot snapshot() {
+        return market.get();
     }
 
-    public synchronized double getPrice() {
-        return price;
+    public double getPrice() {
+        return market.get().getPrice();
     }
 
+    // pretul salvat intr-un checkpoint, aplicat la pornire
+    public void restorePrice(double price) {
+        PriceSnapshot current = market.get();
+        market.set(new PriceSnapshot(price, current.getSequence() + 1, System.currentTimeMillis()));
+    }
+
+    // valoare exacta: se reciteste daca o rebalansare a mutat lichiditate in timpul citirii
     public int available() {
-        return maxLiquidity - used.get();
+        int total;
+        while ((total = readAvailable()) < 0) Thread.onSpinWait();
+        return total;
+    }
+
+    // -1 daca o rebalansare a fost in curs in timpul citirii
+    private int readAvailable() {
+        long v = version.get();
+        if ((v & 1) != 0) return -1;
+        long total = pool.get();
+        for (int i = 0; i < STRIPES; i++) total += free.get(i * PAD);
+        return version.get() == v ? (int) total : -1;
     }
 
+    public int getId() { return id; }
+    public int getMaxLiquidity() { return maxLiquidity; }
     public String getName() { return name; }
 
-    public synchronized void addProfit(double p) {
-        profit += p;
+    public void addProfit(double p) {
+        profit.add(p);
+    }
+
+    public double getProfit() {
+        return profit.sum();
+    }
+
+    private static int stripe() {
+        return (int) (Thread.currentThread().getId() * 0x9E3779B97F4A7C15L >>> 32) & (STRIPES - 1);
     }
 
-    public synchronized double getProfit() {
-        return profit;
+    private static int stripeCount() {
+        int n = 1;
+        while (n < Math.min(64, Runtime.getRuntime().availableProcessors())) n <<= 1;
+        return n;
     }
 }
@@ -0,0 +1,3 @@
+package model;
+
+public enum LifecycleStage { RECEIVED, ACCEPTED, ACKED, COMPLETED, NOTIFIED }
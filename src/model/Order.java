@@ -1,27 +1,52 @@
 package model;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.time.Instant;
 import java.util.concurrent.CompletableFuture;
 
 public class Order {
+    // statusul se schimba prin CAS, fara monitor: nu blocheaza (si nu fixeaza) thread-urile virtuale
+    private static final VarHandle STATUS;
+
+    static {
+        try {
+            STATUS = MethodHandles.lookup().findVarHandle(Order.class, "status", OrderStatus.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     private final int id;
     private final int clientId;
     private final String instrument;
     private final OrderType type;
     private final int volume;
     private final double limitPrice;
-    private final Instant timestamp=Instant.now();
+    private final Instant timestamp;
+    private final long createdNanos=System.nanoTime();
     private final CompletableFuture<OrderStatus> future = new CompletableFuture<>();
-    private OrderStatus status=OrderStatus.PENDING;
+    private volatile OrderStatus status=OrderStatus.PENDING;
+    // momente System.nanoTime() pe etape, alocate doar pentru ordinele esantionate
+    private long[] checkpoints;
+    // epocile (EpochGate) in care ordinul a intrat si a iesit din repository, pentru snapshot-uri
+    private volatile long addedEpoch = Long.MAX_VALUE;
+    private volatile long retiredEpoch = Long.MAX_VALUE;
 
     public Order(int id, int clientId, String instrument, OrderType type,
                  int volume, double limitPrice) {
+        this(id, clientId, instrument, type, volume, limitPrice, Instant.now());
+    }
+
+    public Order(int id, int clientId, String instrument, OrderType type,
+                 int volume, double limitPrice, Instant timestamp) {
         this.id = id;
         this.clientId = clientId;
         this.instrument = instrument;
         this.type = type;
         this.volume = volume;
         this.limitPrice = limitPrice;
+        this.timestamp = timestamp;
     }
 
     public int getId() { return id; }
@@ -31,8 +56,45 @@ public class Order {
     public int getVolume() { return volume; }
     public double getLimitPrice() { return limitPrice; }
     public Instant getTimestamp() { return timestamp; }
+    public long getCreatedNanos() { return createdNanos; }
     public CompletableFuture<OrderStatus> getFuture() { return future; }
 
-    public synchronized OrderStatus getStatus() { return status; }
-    public synchronized void setStatus(OrderStatus s) { status = s; }
+    public OrderStatus getStatus() { return status; }
+    public void setStatus(OrderStatus s) {
+        status = s;
+        mark(LifecycleStage.COMPLETED);
+    }
+
+    public boolean compareAndSetStatus(OrderStatus expected, OrderStatus s) {
+        if (!STATUS.compareAndSet(this, expected, s)) return false;
+        if (s != OrderStatus.PENDING) mark(LifecycleStage.COMPLETED);
+        return true;
+    }
+
+    public long getAddedEpoch() { return addedEpoch; }
+    public long getRetiredEpoch() { return retiredEpoch; }
+    public void setAddedEpoch(long epoch) { addedEpoch = epoch; }
+    public void setRetiredEpoch(long epoch) { retiredEpoch = epoch; }
+
+    // ordinul era PENDING in repository la sfarsitul epocii date
+    public boolean isPendingAt(long epoch) {
+        return addedEpoch <= epoch && retiredEpoch > epoch;
+    }
+
+    public void startTrace(long receivedNanos) {
+        checkpoints = new long[LifecycleStage.values().length];
+        checkpoints[LifecycleStage.RECEIVED.ordinal()] = receivedNanos;
+    }
+
+    public boolean isTraced() { return checkpoints != null; }
+
+    public void mark(LifecycleStage stage) {
+        long[] c = checkpoints;
+        if (c != null) c[stage.ordinal()] = System.nanoTime();
+    }
+
+    public long getCheckpoint(LifecycleStage stage) {
+        long[] c = checkpoints;
+        return c == null ? 0 : c[stage.ordinal()];
+    }
 }
\ No newline at end of file
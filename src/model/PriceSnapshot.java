@@ -0,0 +1,18 @@
+package model;
+
+// starea de piata a unui instrument la un tick; imutabila, publicata atomic de Instrument
+public final class PriceSnapshot {
+    private final double price;
+    private final long sequence;
+    private final long timestampMillis;
+
+    public PriceSnapshot(double price, long sequence, long timestampMillis) {
+        this.price = price;
+        this.sequence = sequence;
+        this.timestampMillis = timestampMillis;
+    }
+
+    public double getPrice() { return price; }
+    public long getSequence() { return sequence; }
+    public long getTimestampMillis() { return timestampMillis; }
+}
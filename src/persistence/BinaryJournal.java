@@ -0,0 +1,300 @@
+package persistence;
+
+import model.Order;
+import model.OrderType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+// jurnal binar cu inregistrari de lungime fixa, scris prin MappedByteBuffer in fisiere segment
+// Format inregistrare (48 bytes):
+// crc32c(4) tip(1) side(1) rezervat(2) instrument(8) id_ordin(4) id_client(4) volum(4) valoare(8) timestamp_ms(8) rezervat(4)
+// (acelasi format circula si pe conexiunea de replicare, vezi ReplicationPrimary)
+public class BinaryJournal implements EventLog, AutoCloseable {
+    public static final int RECORD_SIZE = 48;
+
+    static final byte ORDER = 1;
+    static final byte EXECUTION = 2;
+    static final byte CANCELLATION = 3;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".bin";
+
+    private final Path dir;
+    private final long segmentBytes;
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+    private final CRC32C crc = new CRC32C();
+    // nu monitor: scrierea e pe calea de intrare a ordinelor, iar un thread virtual care asteapta
+    // un monitor isi fixeaza thread-ul purtator (JDK 21)
+    private final ReentrantLock lock = new ReentrantLock();
+    private MappedByteBuffer segment;
+    private int segmentIndex;
+
+    public BinaryJournal(String dir, int segmentMb) throws IOException {
+        this.dir = Path.of(dir);
+        this.segmentBytes = (long) segmentMb * 1024 * 1024 / RECORD_SIZE * RECORD_SIZE;
+        Files.createDirectories(this.dir);
+        this.segmentIndex = segments().stream().mapToInt(BinaryJournal::indexOf).max().orElse(0);
+        reopenLastSegment();
+    }
+
+    @Override
+    public void logOrder(Order o) {
+        append(ORDER, o.getType() == OrderType.BUY ? 0 : 1, encodeName(o.getInstrument()), o.getId(),
+                o.getClientId(), o.getVolume(), o.getLimitPrice(), o.getTimestamp().toEpochMilli());
+    }
+
+    @Override
+    public void logExecution(int orderId, int volume, double commission) {
+        append(EXECUTION, 0, 0, orderId, 0, volume, commission, System.currentTimeMillis());
+    }
+
+    @Override
+    public void logCancellation(int orderId) {
+        append(CANCELLATION, 0, 0, orderId, 0, 0, 0, System.currentTimeMillis());
+    }
+
+    private void append(byte type, int side, long instrument, int orderId, int clientId,
+                        int volume, double value, long timestamp) {
+        lock.lock();
+        try {
+            if (segment == null || segment.remaining() < RECORD_SIZE) roll();
+            record.clear();
+            encode(record, crc, type, side, instrument, orderId, clientId, volume, value, timestamp);
+            segment.put(record.array());
+        } catch (IOException e) {
+            System.err.println("Error writing binary journal: " + e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // scrie o inregistrare la pozitia curenta a unui buffer cu array
+    static void encode(ByteBuffer out, CRC32C crc, byte type, int side, long instrument, int orderId, int clientId,
+                       int volume, double value, long timestamp) {
+        int start = out.position();
+        out.putInt(0)
+                .put(type)
+                .put((byte) side)
+                .putShort((short) 0)
+                .putLong(instrument)
+                .putInt(orderId)
+                .putInt(clientId)
+                .putInt(volume)
+                .putDouble(value)
+                .putLong(timestamp)
+                .putInt(0);
+        crc.reset();
+        crc.update(out.array(), out.arrayOffset() + start + 4, RECORD_SIZE - 4);
+        out.putInt(start, (int) crc.getValue());
+    }
+
+    private void roll() throws IOException {
+        segmentIndex++;
+        try (FileChannel ch = FileChannel.open(segmentFile(segmentIndex), StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            segment = ch.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        }
+    }
+
+    // la pornire scrierea continua in ultimul segment, dupa ultima inregistrare valida (una intrerupta
+    // e suprascrisa), ca fiecare repornire sa nu lase in urma un segment aproape gol. Daca dupa ea mai
+    // exista date (pagini scrise in alta ordine inainte de o cadere) sau segmentMb s-a schimbat,
+    // segmentul ramane neatins si prima scriere incepe unul nou
+    private void reopenLastSegment() throws IOException {
+        if (segmentIndex == 0) return;
+        try (FileChannel ch = FileChannel.open(segmentFile(segmentIndex),
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            if (ch.size() != segmentBytes) return;
+            MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+            Record rec = new Record();
+            int end = 0;
+            int read = Record.EMPTY;
+            while (map.remaining() >= RECORD_SIZE && (read = rec.read(map)) == Record.OK) end += RECORD_SIZE;
+            int clean = read == Record.CORRUPT ? end + RECORD_SIZE : end;
+            for (int i = clean; i < map.limit(); i += Long.BYTES) {
+                if (map.getLong(i) != 0) return;
+            }
+            map.position(end);
+            segment = map;
+        }
+    }
+
+    private Path segmentFile(int index) {
+        return dir.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX));
+    }
+
+    // starea de la pornire: ultimul checkpoint valid plus segmentele scrise dupa el
+    public Checkpoint recover() throws IOException {
+        Checkpoint state = Checkpoint.load(dir);
+        replay(state, -1, 0);
+        return state;
+    }
+
+    // state devine checkpoint-ul local, ancorat la pozitia curenta: la pornire se reiau doar
+    // inregistrarile scrise de acum incolo peste el. Apelantul nu scrie in jurnal intre timp
+    public void checkpoint(Checkpoint state) throws IOException {
+        long[] position = position();
+        state.anchor((int) position[0], position[1]);
+        state.write(dir);
+    }
+
+    // pozitia de dupa ultima inregistrare scrisa; inainte de prima scriere, capatul ultimului segment
+    long[] position() {
+        lock.lock();
+        try {
+            return new long[]{segmentIndex, segment == null ? segmentBytes : segment.position()};
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // aplica peste state inregistrarile de la pozitia lui pana la (toSegment, toOffset), exclusiv;
+    // toSegment < 0 inseamna pana la capatul jurnalului. Citirea unui segment se opreste la prima
+    // inregistrare goala sau invalida
+    void replay(Checkpoint state, int toSegment, long toOffset) throws IOException {
+        Record rec = new Record();
+        for (Path file : segments()) {
+            int index = indexOf(file);
+            if (index < state.segment() || (toSegment >= 0 && index > toSegment)) continue;
+            try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+                long end = index == toSegment ? Math.min(toOffset, ch.size()) : ch.size();
+                long offset = index == state.segment() ? Math.min(state.offset(), end) : 0;
+                MappedByteBuffer in = ch.map(FileChannel.MapMode.READ_ONLY, offset, end - offset);
+                while (in.remaining() >= RECORD_SIZE) {
+                    int read = rec.read(in);
+                    if (read == Record.EMPTY) break;
+                    if (read == Record.CORRUPT) {
+                        state.corrupt();
+                        break;
+                    }
+                    state.apply(rec);
+                    offset += RECORD_SIZE;
+                }
+                state.moveTo(index, offset);
+            }
+        }
+    }
+
+    // segmentele dinaintea unui checkpoint nu mai sunt necesare la pornire
+    void deleteSegmentsBefore(int index) throws IOException {
+        for (Path file : segments()) {
+            if (indexOf(file) < index) Files.delete(file);
+        }
+    }
+
+    Path dir() {
+        return dir;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> p.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static int indexOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    // un nume mai lung de 8 caractere ar fi trunchiat si s-ar confunda la reluare cu altul
+    // cu acelasi prefix, deci e respins; verificat la pornire pentru toate instrumentele
+    public static void checkName(String name) {
+        boolean fits = !name.isEmpty() && name.length() <= 8;
+        for (int i = 0; fits && i < name.length(); i++) fits = name.charAt(i) > 0 && name.charAt(i) < 0x80;
+        if (!fits) {
+            throw new IllegalArgumentException("Instrument name must be 1-8 ASCII characters: " + name);
+        }
+    }
+
+    // numele instrumentului (1-8 caractere ASCII) impachetat intr-un long
+    static long encodeName(String name) {
+        checkName(name);
+        byte[] b = name.getBytes(StandardCharsets.US_ASCII);
+        long v = 0;
+        for (int i = 0; i < 8; i++) v = (v << 8) | (i < b.length ? (b[i] & 0xFF) : 0);
+        return v;
+    }
+
+    static String decodeName(long v) {
+        byte[] b = new byte[8];
+        int len = 0;
+        for (int i = 0; i < 8; i++) {
+            byte c = (byte) (v >>> (56 - 8 * i));
+            if (c == 0) break;
+            b[len++] = c;
+        }
+        return new String(b, 0, len, StandardCharsets.US_ASCII);
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (segment != null) segment.force();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // o inregistrare decodata; instanta e refolosita de la o citire la alta
+    static class Record {
+        static final int OK = 0;
+        static final int EMPTY = 1;
+        static final int CORRUPT = 2;
+
+        private final ByteBuffer buf = ByteBuffer.allocate(RECORD_SIZE);
+        private final CRC32C check = new CRC32C();
+        byte type;
+        byte side;
+        long instrument;
+        int orderId;
+        int clientId;
+        int volume;
+        double value;
+        long timestamp;
+
+        // consuma RECORD_SIZE bytes din in
+        int read(ByteBuffer in) {
+            in.get(buf.array());
+            buf.clear();
+            int stored = buf.getInt();
+            type = buf.get();
+            if (type == 0 && stored == 0) return EMPTY;
+            check.reset();
+            check.update(buf.array(), 4, RECORD_SIZE - 4);
+            if ((int) check.getValue() != stored) return CORRUPT;
+            side = buf.get();
+            buf.getShort();
+            instrument = buf.getLong();
+            orderId = buf.getInt();
+            clientId = buf.getInt();
+            volume = buf.getInt();
+            value = buf.getDouble();
+            timestamp = buf.getLong();
+            return OK;
+        }
+
+        String instrumentName() {
+            return decodeName(instrument);
+        }
+
+        Order toOrder() {
+            return new Order(orderId, clientId, decodeName(instrument), side == 0 ? OrderType.BUY : OrderType.SELL,
+                    volume, value, Instant.ofEpochMilli(timestamp));
+        }
+    }
+}
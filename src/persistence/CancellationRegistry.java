@@ -2,6 +2,7 @@ package persistence;
 
 import java.io.File;
 import java.io.FileWriter;
+import java.nio.file.Path;
 import java.time.Instant;
 import java.time.format.DateTimeFormatter;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -10,11 +11,31 @@ public class CancellationRegistry {
     private static final String FILE = "cancellation_registry.txt";
     private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ISO_INSTANT;
     private static final AtomicInteger CANCELLATION_ID = new AtomicInteger(1);
+    private final String file;
+    private final JournalWriter journal;
+    private final EventLog events;
 
-    public CancellationRegistry() {
-        File file = new File(FILE);
-        if (!file.exists()) {
-            try (FileWriter fw = new FileWriter(FILE, false)) {
+    // ultimul id de anulare emis, salvat in checkpoint
+    static int lastIssuedId() {
+        return CANCELLATION_ID.get() - 1;
+    }
+
+    // dupa recuperare, id-urile noi continua dupa ultimul cunoscut
+    public static void resumeIdsAfter(int lastId) {
+        CANCELLATION_ID.accumulateAndGet(lastId + 1, Math::max);
+    }
+
+    public CancellationRegistry(JournalWriter journal, EventLog events) {
+        this(journal, events, Path.of(""));
+    }
+
+    // registrul e scris in dir (directorul curent pentru motor)
+    public CancellationRegistry(JournalWriter journal, EventLog events, Path dir) {
+        this.file = dir.resolve(FILE).toString();
+        this.journal = journal;
+        this.events = events;
+        if (!new File(file).exists()) {
+            try (FileWriter fw = new FileWriter(file, false)) {
                 fw.write("# Cancellation Registry - Format: id_anulare,id_ordin,data,motiv_anulare\n");
             } catch (Exception e) {
                 System.err.println("Error initializing cancellation registry: " + e.getMessage());
@@ -22,18 +43,15 @@ public class CancellationRegistry {
         }
     }
 
-    public synchronized void logCancellation(int orderId, String reason) {
-        try (FileWriter fw = new FileWriter(FILE, true)) {
-            int cancellationId = CANCELLATION_ID.getAndIncrement();
-            String line = String.format("%d,%d,%s,%s%n",
-                cancellationId,
-                orderId,
-                FORMATTER.format(Instant.now()),
-                reason
-            );
-            fw.write(line);
-        } catch (Exception e) {
-            System.err.println("Error logging cancellation: " + e.getMessage());
-        }
+    public void logCancellation(int orderId, String reason) {
+        int cancellationId = CANCELLATION_ID.getAndIncrement();
+        Instant now = Instant.now();
+        if (events != null) events.logCancellation(orderId);
+        journal.append(file, sb -> sb.append(String.format("%d,%d,%s,%s%n",
+            cancellationId,
+            orderId,
+            FORMATTER.format(now),
+            reason
+        )));
     }
 }
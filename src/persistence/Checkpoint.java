@@ -0,0 +1,232 @@
+package persistence;
+
+import model.Instrument;
+import model.Order;
+import model.OrderType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.zip.CRC32C;
+
+// starea motorului refacuta din jurnalul binar pana la o pozitie (segment, offset); scrisa periodic
+// in checkpoint.bin, ca la pornire sa fie reluata doar coada jurnalului de dupa ea
+// Format: magic(4) versiune(4) creat_ms(8) segment(4) offset(8) ultim_id_ordin(4) ultim_id_executie(4)
+//   ultim_id_anulare(4) n_instrumente(4) n_ordine(4)
+//   instrument: nume(8) pret(8) lichiditate_folosita(4) profit(8)
+//   ordin: id(4) id_client(4) instrument(8) side(1) volum(4) pret(8) timestamp_ms(8)
+//   crc32c(4) peste tot ce e inainte
+public class Checkpoint {
+    static final String FILE = "checkpoint.bin";
+    // checkpoint-ul anterior, folosit daca ultimul lipseste sau e invalid
+    static final String PREVIOUS_FILE = "checkpoint-previous.bin";
+    private static final int MAGIC = 0x434B5054;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 48;
+    private static final int INSTRUMENT_SIZE = 28;
+    private static final int ORDER_SIZE = 37;
+
+    private final Map<Integer, Order> pending = new LinkedHashMap<>();
+    private final Map<String, Double> profits = new HashMap<>();
+    private final Map<String, Double> prices = new HashMap<>();
+    // prima inregistrare din jurnal care nu e inclusa in stare
+    private int segment;
+    private long offset;
+    // segmentul checkpoint-ului incarcat la pornire (0 fara checkpoint)
+    private int loadedSegment;
+    private long createdMillis;
+    private int lastOrderId;
+    private int lastExecutionId;
+    private int lastCancellationId;
+    // doar pentru raportul de la pornire
+    private long records;
+    private long corruptRecords;
+
+    void apply(BinaryJournal.Record rec) {
+        records++;
+        lastOrderId = Math.max(lastOrderId, rec.orderId);
+        if (rec.type == BinaryJournal.ORDER) {
+            pending.put(rec.orderId, rec.toOrder());
+        } else if (rec.type == BinaryJournal.EXECUTION) {
+            lastExecutionId++;
+            Order o = pending.remove(rec.orderId);
+            if (o != null) profits.merge(o.getInstrument(), rec.value, Double::sum);
+        } else if (rec.type == BinaryJournal.CANCELLATION) {
+            lastCancellationId++;
+            pending.remove(rec.orderId);
+        }
+    }
+
+    void moveTo(int segment, long offset) {
+        this.segment = segment;
+        this.offset = offset;
+    }
+
+    void corrupt() {
+        corruptRecords++;
+    }
+
+    // stare construita in afara jurnalului (vezi of), valabila de la pozitia data
+    void anchor(int segment, long offset) {
+        moveTo(segment, offset);
+        loadedSegment = segment;
+    }
+
+    int segment() { return segment; }
+    long offset() { return offset; }
+    int loadedSegment() { return loadedSegment; }
+
+    // preturile si contoarele nu sunt in jurnal: se citesc din motor la momentul scrierii.
+    // Contoarele citite pot include si evenimente de dupa pozitia din jurnal; la reluare
+    // ele sunt numarate inca o data, deci id-urile pot sari, dar nu se repeta
+    void capture(Map<String, Instrument> instruments, int lastOrderId, int lastExecutionId, int lastCancellationId) {
+        createdMillis = System.currentTimeMillis();
+        instruments.forEach((name, inst) -> prices.put(name, inst.getPrice()));
+        this.lastOrderId = Math.max(this.lastOrderId, lastOrderId);
+        this.lastExecutionId = Math.max(this.lastExecutionId, lastExecutionId);
+        this.lastCancellationId = Math.max(this.lastCancellationId, lastCancellationId);
+    }
+
+    // starea curenta a motorului, ca punct de plecare pentru un standby (vezi ReplicationPrimary);
+    // apelantul trebuie sa se asigure ca nu se produc evenimente intre timp
+    public static Checkpoint of(Map<String, Instrument> instruments, Collection<Order> pending, int lastOrderId) {
+        Checkpoint c = new Checkpoint();
+        for (Order o : pending) c.pending.put(o.getId(), o);
+        instruments.forEach((name, inst) -> {
+            if (inst.getProfit() != 0) c.profits.put(name, inst.getProfit());
+        });
+        c.capture(instruments, lastOrderId, ExecutionRegistry.lastIssuedId(), CancellationRegistry.lastIssuedId());
+        return c;
+    }
+
+    // scris intr-un fisier temporar si mutat atomic peste cel vechi, care devine PREVIOUS_FILE
+    void write(Path dir) throws IOException {
+        ByteBuffer buf = encode();
+        Path tmp = dir.resolve(FILE + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buf.hasRemaining()) ch.write(buf);
+            ch.force(true);
+        }
+        Path file = dir.resolve(FILE);
+        if (Files.exists(file)) {
+            Files.move(file, dir.resolve(PREVIOUS_FILE), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        }
+        Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // buffer pregatit pentru citire, cu checksum-ul la final
+    ByteBuffer encode() {
+        Map<String, Integer> used = usedLiquidity();
+        TreeSet<String> names = new TreeSet<>(prices.keySet());
+        names.addAll(profits.keySet());
+        names.addAll(used.keySet());
+
+        ByteBuffer buf = ByteBuffer.allocate(HEADER_SIZE + names.size() * INSTRUMENT_SIZE
+                + pending.size() * ORDER_SIZE + 4);
+        buf.putInt(MAGIC).putInt(VERSION).putLong(createdMillis)
+                .putInt(segment).putLong(offset)
+                .putInt(lastOrderId).putInt(lastExecutionId).putInt(lastCancellationId)
+                .putInt(names.size()).putInt(pending.size());
+        for (String name : names) {
+            buf.putLong(BinaryJournal.encodeName(name))
+                    .putDouble(prices.getOrDefault(name, 0.0))
+                    .putInt(used.getOrDefault(name, 0))
+                    .putDouble(profits.getOrDefault(name, 0.0));
+        }
+        for (Order o : pending.values()) {
+            buf.putInt(o.getId()).putInt(o.getClientId())
+                    .putLong(BinaryJournal.encodeName(o.getInstrument()))
+                    .put((byte) (o.getType() == OrderType.BUY ? 0 : 1))
+                    .putInt(o.getVolume()).putDouble(o.getLimitPrice())
+                    .putLong(o.getTimestamp().toEpochMilli());
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(buf.array(), 0, buf.position());
+        return buf.putInt((int) crc.getValue()).flip();
+    }
+
+    // cel mai recent checkpoint valid din dir sau o stare goala (reluare de la inceputul jurnalului)
+    static Checkpoint load(Path dir) throws IOException {
+        for (String name : new String[]{FILE, PREVIOUS_FILE}) {
+            Path file = dir.resolve(name);
+            if (!Files.exists(file)) continue;
+            Checkpoint c = decode(ByteBuffer.wrap(Files.readAllBytes(file)));
+            if (c != null) return c;
+            System.err.println("Ignoring invalid checkpoint " + file);
+        }
+        return new Checkpoint();
+    }
+
+    // null daca buffer-ul (cu array) nu contine un checkpoint valid
+    static Checkpoint decode(ByteBuffer in) {
+        if (in.remaining() < HEADER_SIZE + 4) return null;
+        CRC32C crc = new CRC32C();
+        crc.update(in.array(), 0, in.limit() - 4);
+        if ((int) crc.getValue() != in.getInt(in.limit() - 4)) return null;
+        if (in.getInt() != MAGIC || in.getInt() != VERSION) return null;
+
+        Checkpoint c = new Checkpoint();
+        c.createdMillis = in.getLong();
+        c.segment = in.getInt();
+        c.offset = in.getLong();
+        c.loadedSegment = c.segment;
+        c.lastOrderId = in.getInt();
+        c.lastExecutionId = in.getInt();
+        c.lastCancellationId = in.getInt();
+        int instruments = in.getInt();
+        int orders = in.getInt();
+        if (in.remaining() != (long) instruments * INSTRUMENT_SIZE + (long) orders * ORDER_SIZE + 4) return null;
+
+        Map<String, Integer> used = new HashMap<>();
+        for (int i = 0; i < instruments; i++) {
+            String name = BinaryJournal.decodeName(in.getLong());
+            c.prices.put(name, in.getDouble());
+            used.put(name, in.getInt());
+            double profit = in.getDouble();
+            if (profit != 0) c.profits.put(name, profit);
+        }
+        for (int i = 0; i < orders; i++) {
+            int id = in.getInt();
+            int clientId = in.getInt();
+            String name = BinaryJournal.decodeName(in.getLong());
+            OrderType type = in.get() == 0 ? OrderType.BUY : OrderType.SELL;
+            int volume = in.getInt();
+            double price = in.getDouble();
+            Instant timestamp = Instant.ofEpochMilli(in.getLong());
+            c.pending.put(id, new Order(id, clientId, name, type, volume, price, timestamp));
+        }
+        // lichiditatea folosita trebuie sa fie exact volumul ordinelor in asteptare
+        used.values().removeIf(v -> v == 0);
+        return used.equals(c.usedLiquidity()) ? c : null;
+    }
+
+    private Map<String, Integer> usedLiquidity() {
+        Map<String, Integer> used = new HashMap<>();
+        for (Order o : pending.values()) used.merge(o.getInstrument(), o.getVolume(), Integer::sum);
+        return used;
+    }
+
+    public List<Order> getPendingOrders() { return new ArrayList<>(pending.values()); }
+    public Map<String, Double> getProfits() { return profits; }
+    public Map<String, Double> getPrices() { return prices; }
+    public int getLastOrderId() { return lastOrderId; }
+    public int getLastExecutionId() { return lastExecutionId; }
+    public int getLastCancellationId() { return lastCancellationId; }
+    public long getCreatedMillis() { return createdMillis; }
+    public long getRecords() { return records; }
+    public long getCorruptRecords() { return corruptRecords; }
+}
@@ -0,0 +1,48 @@
+package persistence;
+
+import model.Instrument;
+import utils.PerformanceMonitor;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.function.IntSupplier;
+
+// checkpoint periodic, in fundal: starea refacuta la pornire e continuata cu inregistrarile scrise
+// de atunci in jurnalul binar, pana la pozitia curenta a scriitorului, si scrisa in checkpoint.bin.
+// Intrarea ordinelor nu e oprita: se citeste doar ce e deja in jurnal, deci starea e consistenta
+// cu o pozitie din el. Segmentele de dinaintea checkpoint-ului anterior sunt sterse.
+public class Checkpointer implements Runnable {
+    private final BinaryJournal journal;
+    private final Checkpoint state;
+    private final Map<String, Instrument> instruments;
+    private final IntSupplier lastOrderId;
+    // segmentele de la acesta incolo sunt necesare checkpoint-ului anterior
+    private int retainFrom;
+
+    public Checkpointer(BinaryJournal journal, Checkpoint state, Map<String, Instrument> instruments,
+                        IntSupplier lastOrderId) {
+        this.journal = journal;
+        this.state = state;
+        this.instruments = instruments;
+        this.lastOrderId = lastOrderId;
+        this.retainFrom = state.loadedSegment();
+    }
+
+    @Override
+    public void run() {
+        try {
+            long start = System.nanoTime();
+            long[] position = journal.position();
+            journal.replay(state, (int) position[0], position[1]);
+            state.capture(instruments, lastOrderId.getAsInt(),
+                    ExecutionRegistry.lastIssuedId(), CancellationRegistry.lastIssuedId());
+            state.write(journal.dir());
+            journal.deleteSegmentsBefore(retainFrom);
+            retainFrom = state.segment();
+            PerformanceMonitor.recordTiming("checkpoint_write", System.nanoTime() - start);
+            PerformanceMonitor.incrementCounter("checkpoints_written");
+        } catch (IOException e) {
+            System.err.println("Error writing checkpoint: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package persistence;
+
+import model.Order;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+// evenimentele care schimba starea motorului (ordin acceptat, executie, anulare), in ordinea in care apar;
+// le primesc jurnalul binar si replicarea catre standby
+public interface EventLog {
+    void logOrder(Order o);
+
+    void logExecution(int orderId, int volume, double commission);
+
+    void logCancellation(int orderId);
+
+    // destinatiile nenule, in ordine; null daca nu e niciuna
+    static EventLog of(EventLog... logs) {
+        EventLog[] targets = Arrays.stream(logs).filter(Objects::nonNull).toArray(EventLog[]::new);
+        if (targets.length == 0) return null;
+        if (targets.length == 1) return targets[0];
+        return new EventLog() {
+            @Override
+            public void logOrder(Order o) {
+                for (EventLog log : targets) log.logOrder(o);
+            }
+
+            @Override
+            public void logExecution(int orderId, int volume, double commission) {
+                for (EventLog log : targets) log.logExecution(orderId, volume, commission);
+            }
+
+            @Override
+            public void logCancellation(int orderId) {
+                for (EventLog log : targets) log.logCancellation(orderId);
+            }
+        };
+    }
+}
@@ -2,6 +2,7 @@ package persistence;
 
 import java.io.File;
 import java.io.FileWriter;
+import java.nio.file.Path;
 import java.time.Instant;
 import java.time.format.DateTimeFormatter;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -10,11 +11,31 @@ public class ExecutionRegistry {
     private static final String FILE = "execution_registry.txt";
     private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ISO_INSTANT;
     private static final AtomicInteger EXECUTION_ID = new AtomicInteger(1);
+    private final String file;
+    private final JournalWriter journal;
+    private final EventLog events;
 
-    public ExecutionRegistry() {
-        File file = new File(FILE);
-        if (!file.exists()) {
-            try (FileWriter fw = new FileWriter(FILE, false)) {
+    // ultimul id de executie emis, salvat in checkpoint
+    static int lastIssuedId() {
+        return EXECUTION_ID.get() - 1;
+    }
+
+    // dupa recuperare, id-urile noi continua dupa ultimul cunoscut
+    public static void resumeIdsAfter(int lastId) {
+        EXECUTION_ID.accumulateAndGet(lastId + 1, Math::max);
+    }
+
+    public ExecutionRegistry(JournalWriter journal, EventLog events) {
+        this(journal, events, Path.of(""));
+    }
+
+    // registrul e scris in dir (directorul curent pentru motor)
+    public ExecutionRegistry(JournalWriter journal, EventLog events, Path dir) {
+        this.file = dir.resolve(FILE).toString();
+        this.journal = journal;
+        this.events = events;
+        if (!new File(file).exists()) {
+            try (FileWriter fw = new FileWriter(file, false)) {
                 fw.write("# Execution Registry - Format: id_execuție,id_ordin,data,volum_executat,preț_final,comision\n");
             } catch (Exception e) {
                 System.err.println("Error initializing execution registry: " + e.getMessage());
@@ -22,21 +43,18 @@ public class ExecutionRegistry {
         }
     }
 
-    public synchronized void logExecution(int orderId, int volumeExecuted, 
-                                         double totalValue, double commission) {
-        try (FileWriter fw = new FileWriter(FILE, true)) {
-            int executionId = EXECUTION_ID.getAndIncrement();
-            String line = String.format("%d,%d,%s,%d,%.2f,%.2f%n",
-                executionId,
-                orderId,
-                FORMATTER.format(Instant.now()),
-                volumeExecuted,
-                totalValue,
-                commission
-            );
-            fw.write(line);
-        } catch (Exception e) {
-            System.err.println("Error logging execution: " + e.getMessage());
-        }
+    public void logExecution(int orderId, int volumeExecuted,
+                             double totalValue, double commission) {
+        int executionId = EXECUTION_ID.getAndIncrement();
+        Instant now = Instant.now();
+        if (events != null) events.logExecution(orderId, volumeExecuted, commission);
+        journal.append(file, sb -> sb.append(String.format("%d,%d,%s,%d,%.2f,%.2f%n",
+            executionId,
+            orderId,
+            FORMATTER.format(now),
+            volumeExecuted,
+            totalValue,
+            commission
+        )));
     }
 }
@@ -0,0 +1,154 @@
+package persistence;
+
+import utils.PerformanceMonitor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// scriere asincrona in registre: apelantii doar pun inregistrari in coada,
+// thread-ul jurnalului le grupeaza si face o singura scriere per fisier la fiecare commit
+public class JournalWriter implements Runnable, AutoCloseable {
+    private static final int MAX_BATCH = 4096;
+
+    private final BlockingQueue<Entry> queue;
+    // inregistrarile appendNow care nu au incaput in coada; nelimitata, golita la fiecare commit
+    private final ConcurrentLinkedQueue<Entry> overflow = new ConcurrentLinkedQueue<>();
+    private final long commitNanos;
+    private final boolean fsync;
+    private final Map<String, FileChannel> channels = new HashMap<>();
+    private final Thread thread = new Thread(this, "journal-writer");
+    private volatile boolean running;
+
+    public JournalWriter(int commitMillis, boolean fsync, int queueSize) {
+        this.commitNanos = TimeUnit.MILLISECONDS.toNanos(commitMillis);
+        this.fsync = fsync;
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+    }
+
+    public void start() {
+        running = true;
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // formatarea liniei se face pe thread-ul jurnalului
+    public void append(String file, Consumer<StringBuilder> formatter) {
+        Entry e = new Entry(file, formatter);
+        if (queue.offer(e)) return;
+        PerformanceMonitor.incrementCounter("journal_queue_full");
+        try {
+            queue.put(e);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // pentru apelanti care nu trebuie sa astepte niciodata: cu coada plina, inregistrarea trece
+    // in lista de depasire, scrisa dupa inregistrarile din coada ale aceluiasi commit
+    public void appendNow(String file, Consumer<StringBuilder> formatter) {
+        Entry e = new Entry(file, formatter);
+        if (queue.offer(e)) return;
+        overflow.add(e);
+        PerformanceMonitor.incrementCounter("journal_overflow");
+    }
+
+    @Override
+    public void run() {
+        List<Entry> batch = new ArrayList<>(MAX_BATCH);
+        while (running || !queue.isEmpty() || !overflow.isEmpty()) {
+            try {
+                Entry first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first != null) batch.add(first);
+                else if (overflow.isEmpty()) continue;
+
+                long deadline = System.nanoTime() + commitNanos;
+                while (first != null && batch.size() < MAX_BATCH) {
+                    if (queue.drainTo(batch, MAX_BATCH - batch.size()) > 0) continue;
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0 || !running) break;
+                    Entry next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                }
+                Entry late;
+                while ((late = overflow.poll()) != null) batch.add(late);
+
+                commit(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                PerformanceMonitor.incrementCounter("journal_errors");
+                System.err.println("Error writing journal batch: " + e.getMessage());
+            } finally {
+                batch.clear();
+            }
+        }
+        channels.values().forEach(c -> {
+            try {
+                c.close();
+            } catch (IOException ignored) {}
+        });
+    }
+
+    private void commit(List<Entry> batch) throws IOException {
+        long start = System.nanoTime();
+        Map<String, StringBuilder> perFile = new LinkedHashMap<>();
+        for (Entry e : batch) {
+            e.formatter.accept(perFile.computeIfAbsent(e.file, f -> new StringBuilder()));
+        }
+        for (Map.Entry<String, StringBuilder> e : perFile.entrySet()) {
+            FileChannel channel = channel(e.getKey());
+            ByteBuffer buf = ByteBuffer.wrap(e.getValue().toString().getBytes(StandardCharsets.UTF_8));
+            while (buf.hasRemaining()) channel.write(buf);
+            if (fsync) channel.force(false);
+        }
+        PerformanceMonitor.recordTiming("journal_commit", System.nanoTime() - start);
+        PerformanceMonitor.incrementCounter("journal_commits");
+    }
+
+    private FileChannel channel(String file) throws IOException {
+        FileChannel c = channels.get(file);
+        if (c == null) {
+            c = FileChannel.open(Path.of(file), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            channels.put(file, c);
+        }
+        return c;
+    }
+
+    // goleste coada si inchide fisierele; apelat la shutdown
+    @Override
+    public void close() {
+        running = false;
+        try {
+            thread.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class Entry {
+        private final String file;
+        private final Consumer<StringBuilder> formatter;
+
+        Entry(String file, Consumer<StringBuilder> formatter) {
+            this.file = file;
+            this.formatter = formatter;
+        }
+    }
+}
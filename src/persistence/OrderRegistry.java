@@ -1,19 +1,31 @@
 package persistence;
 
 import model.Order;
+import model.OrderStatus;
 
 import java.io.File;
 import java.io.FileWriter;
+import java.nio.file.Path;
 import java.time.format.DateTimeFormatter;
 
 public class OrderRegistry {
     private static final String FILE = "order_registry.txt";
     private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ISO_INSTANT;
+    private final String file;
+    private final JournalWriter journal;
+    private final EventLog events;
 
-    public OrderRegistry() {
-        File file = new File(FILE);
-        if (!file.exists()) {
-            try (FileWriter fw = new FileWriter(FILE, false)) {
+    public OrderRegistry(JournalWriter journal, EventLog events) {
+        this(journal, events, Path.of(""));
+    }
+
+    // registrul e scris in dir (directorul curent pentru motor)
+    public OrderRegistry(JournalWriter journal, EventLog events, Path dir) {
+        this.file = dir.resolve(FILE).toString();
+        this.journal = journal;
+        this.events = events;
+        if (!new File(file).exists()) {
+            try (FileWriter fw = new FileWriter(file, false)) {
                 fw.write("# Order Registry - Format: id_ordin,id_client,instrument,tip_ordin,volum_solicitat,preț,status,oră_plasare\n");
             } catch (Exception e) {
                 System.err.println("Error initializing order registry: " + e.getMessage());
@@ -21,30 +33,24 @@ public class OrderRegistry {
         }
     }
 
-    public synchronized void logOrder(Order order) {
-        try (FileWriter fw = new FileWriter(FILE, true)) {
-            String line = String.format("%d,%d,%s,%s,%d,%.2f,%s,%s%n",
-                order.getId(),
-                order.getClientId(),
-                order.getInstrument(),
-                order.getType(),
-                order.getVolume(),
-                order.getLimitPrice(),
-                order.getStatus(),
-                FORMATTER.format(order.getTimestamp())
-            );
-            fw.write(line);
-        } catch (Exception e) {
-            System.err.println("Error logging order: " + e.getMessage());
-        }
+    public void logOrder(Order order) {
+        // statusul se citeste acum, nu la momentul scrierii in fisier
+        OrderStatus status = order.getStatus();
+        if (events != null && status == OrderStatus.PENDING) events.logOrder(order);
+        journal.append(file, sb -> sb.append(String.format("%d,%d,%s,%s,%d,%.2f,%s,%s%n",
+            order.getId(),
+            order.getClientId(),
+            order.getInstrument(),
+            order.getType(),
+            order.getVolume(),
+            order.getLimitPrice(),
+            status,
+            FORMATTER.format(order.getTimestamp())
+        )));
     }
 
-    public synchronized void updateOrderStatus(int orderId, String status) {
-        try (FileWriter fw = new FileWriter(FILE, true)) {
-            String line = String.format("UPDATE,%d,%s%n", orderId, status);
-            fw.write(line);
-        } catch (Exception e) {
-            System.err.println("Error updating order status: " + e.getMessage());
-        }
+    public void updateOrderStatus(int orderId, String status) {
+        // apelat din notificarea FINAL: nu asteapta dupa jurnal, dar linia nu se pierde
+        journal.appendNow(file, sb -> sb.append(String.format("UPDATE,%d,%s%n", orderId, status)));
     }
 }
@@ -0,0 +1,205 @@
+package persistence;
+
+import model.Order;
+import model.OrderType;
+import utils.ConfigManager;
+import utils.PerformanceMonitor;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32C;
+
+// trimite evenimentele primarului catre standby, pe loopback, in formatul inregistrarilor BinaryJournal.
+// Primul cadru e starea de pornire a primarului (ordinele in asteptare, profitul, preturile si
+// contoarele, in formatul Checkpoint): int BOOTSTRAP | int lungime | checkpoint.
+// Urmatoarele: int n | n inregistrari (n = 0: heartbeat). Standby-ul raspunde dupa fiecare cadru aplicat
+// cu numarul total de inregistrari aplicate (long), deci o confirmare acopera un lot intreg.
+// Asincron (implicit): apelantul doar copiaza inregistrarea in buffer-ul curent, iar thread-ul de
+// trimitere schimba buffer-ele si scrie lotul. Sincron (replicationSync): apelantul asteapta si confirmarea.
+public class ReplicationPrimary implements EventLog, Runnable, AutoCloseable {
+    private static final long CONNECT_TIMEOUT_MILLIS = 5000;
+    static final int BOOTSTRAP = -1;
+
+    private final boolean sync;
+    private final long heartbeatMillis;
+    private final CRC32C crc = new CRC32C();
+    private final Object ackLock = new Object();
+    private final Socket socket;
+    private final DataOutputStream out;
+    private final DataInputStream in;
+    // buffer-ul in care scriu apelantii si cel trimis de thread-ul de replicare; protejate de this
+    private ByteBuffer filling;
+    private ByteBuffer sending;
+    private long appended;
+    private volatile long acked;
+    private volatile boolean connected = true;
+
+    // creat inainte ca motorul sa produca evenimente, ca bootstrap sa fie consistent cu fluxul care urmeaza
+    public ReplicationPrimary(Checkpoint bootstrap) throws IOException {
+        ConfigManager config = ConfigManager.getInstance();
+        this.sync = config.isReplicationSync();
+        this.heartbeatMillis = config.getReplicationHeartbeatMillis();
+        int capacity = Math.max(1, config.getReplicationBatchRecords()) * BinaryJournal.RECORD_SIZE;
+        this.filling = ByteBuffer.allocate(capacity);
+        this.sending = ByteBuffer.allocate(capacity);
+        this.socket = connect(config.getReplicationPort());
+        socket.setTcpNoDelay(true);
+        this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), capacity + 4));
+        this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        ByteBuffer state = bootstrap.encode();
+        out.writeInt(BOOTSTRAP);
+        out.writeInt(state.remaining());
+        out.write(state.array(), 0, state.remaining());
+        out.flush();
+        System.out.println("Replicating to standby on port " + config.getReplicationPort()
+                + (sync ? " (synchronous)" : " (asynchronous)"));
+
+        Thread sender = new Thread(this, "replication-sender");
+        sender.setDaemon(true);
+        sender.start();
+        Thread ackReader = new Thread(this::readAcks, "replication-acks");
+        ackReader.setDaemon(true);
+        ackReader.start();
+    }
+
+    // standby-ul poate porni putin dupa primar
+    private static Socket connect(int port) throws IOException {
+        long deadline = System.currentTimeMillis() + CONNECT_TIMEOUT_MILLIS;
+        while (true) {
+            try {
+                return new Socket(InetAddress.getLoopbackAddress(), port);
+            } catch (IOException e) {
+                if (System.currentTimeMillis() > deadline) throw e;
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void logOrder(Order o) {
+        replicate(append(BinaryJournal.ORDER, o.getType() == OrderType.BUY ? 0 : 1,
+                BinaryJournal.encodeName(o.getInstrument()), o.getId(), o.getClientId(), o.getVolume(),
+                o.getLimitPrice(), o.getTimestamp().toEpochMilli()));
+    }
+
+    @Override
+    public void logExecution(int orderId, int volume, double commission) {
+        replicate(append(BinaryJournal.EXECUTION, 0, 0, orderId, 0, volume, commission, System.currentTimeMillis()));
+    }
+
+    @Override
+    public void logCancellation(int orderId) {
+        replicate(append(BinaryJournal.CANCELLATION, 0, 0, orderId, 0, 0, 0, System.currentTimeMillis()));
+    }
+
+    // numarul de ordine al inregistrarii, sau -1 daca replicarea s-a oprit
+    private synchronized long append(byte type, int side, long instrument, int orderId, int clientId,
+                                     int volume, double value, long timestamp) {
+        // buffer plin: se asteapta urmatoarea trimitere
+        while (connected && filling.remaining() < BinaryJournal.RECORD_SIZE) {
+            PerformanceMonitor.incrementCounter("replication_buffer_full");
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return -1;
+            }
+        }
+        if (!connected) return -1;
+        BinaryJournal.encode(filling, crc, type, side, instrument, orderId, clientId, volume, value, timestamp);
+        notifyAll();
+        return ++appended;
+    }
+
+    private void replicate(long seq) {
+        if (!sync || seq < 0 || acked >= seq) return;
+        long start = System.nanoTime();
+        synchronized (ackLock) {
+            while (connected && acked < seq) {
+                try {
+                    ackLock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+        PerformanceMonitor.recordTiming("replication_sync_wait", System.nanoTime() - start);
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (connected) {
+                synchronized (this) {
+                    if (filling.position() == 0) wait(heartbeatMillis);
+                    ByteBuffer full = filling;
+                    filling = sending;
+                    sending = full;
+                    notifyAll();
+                }
+                int count = sending.position() / BinaryJournal.RECORD_SIZE;
+                out.writeInt(count);
+                out.write(sending.array(), 0, sending.position());
+                out.flush();
+                sending.clear();
+                if (count > 0) {
+                    PerformanceMonitor.recordTiming("replication_batch_size", count);
+                    PerformanceMonitor.incrementCounter("replication_records_sent", count);
+                }
+            }
+        } catch (IOException | InterruptedException e) {
+            disconnected(e);
+        }
+    }
+
+    private void readAcks() {
+        try {
+            while (true) {
+                long seq = in.readLong();
+                synchronized (ackLock) {
+                    acked = seq;
+                    ackLock.notifyAll();
+                }
+            }
+        } catch (IOException e) {
+            disconnected(e);
+        }
+    }
+
+    // fara standby, primarul continua singur; in modul sincron apelantii nu mai asteapta
+    private void disconnected(Exception e) {
+        synchronized (this) {
+            if (!connected) return;
+            connected = false;
+            notifyAll();
+        }
+        synchronized (ackLock) {
+            ackLock.notifyAll();
+        }
+        PerformanceMonitor.incrementCounter("replication_disconnects");
+        System.err.println("Replication to standby stopped: " + e.getMessage());
+    }
+
+    public long getAcked() {
+        return acked;
+    }
+
+    @Override
+    public void close() {
+        try {
+            socket.close();
+        } catch (IOException ignored) {}
+    }
+}
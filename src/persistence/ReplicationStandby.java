@@ -0,0 +1,182 @@
+package persistence;
+
+import model.Instrument;
+import model.Order;
+import utils.ConfigManager;
+import utils.PerformanceMonitor;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// standby-ul: primeste starea de pornire si evenimentele primarului (vezi ReplicationPrimary) si le aplica
+// pe loc instrumentelor proprii (rezervari de lichiditate, profit) si multimii de ordine in asteptare.
+// Daca primarul tace mai mult de replicationFailoverMillis (nici heartbeat), standby-ul e promovat:
+// ordinele in asteptare trec in OrderRepository si nodul porneste ca un server obisnuit.
+public class ReplicationStandby {
+    private final Map<String, Instrument> instruments;
+    private final int port;
+    private final int failoverMillis;
+    private final Map<Integer, Order> pending = new LinkedHashMap<>();
+    private int lastOrderId;
+    private int lastExecutionId;
+    private int lastCancellationId;
+    private long applied;
+
+    public ReplicationStandby(Map<String, Instrument> instruments) {
+        ConfigManager config = ConfigManager.getInstance();
+        this.instruments = instruments;
+        this.port = config.getReplicationPort();
+        this.failoverMillis = config.getReplicationFailoverMillis();
+    }
+
+    // blocheaza pana la promovare; primarul trebuie sa se conecteze o singura data, de la pornire
+    // IOException daca porturile primarului nu se elibereaza: un nod promovat care nu asculta e inutil
+    public void awaitPromotion() throws IOException {
+        try (ServerSocket server = new ServerSocket(port, 1, InetAddress.getLoopbackAddress())) {
+            System.out.println("Standby waiting for primary on port " + port);
+            try (Socket s = server.accept()) {
+                s.setSoTimeout(failoverMillis);
+                s.setTcpNoDelay(true);
+                System.out.println("Standby replicating from primary " + s.getRemoteSocketAddress());
+                follow(new DataInputStream(new BufferedInputStream(s.getInputStream())),
+                        new DataOutputStream(new BufferedOutputStream(s.getOutputStream())));
+            }
+        }
+        System.out.println("Standby promoted after " + applied + " replicated records: "
+                + pending.size() + " pending orders");
+        // pe aceeasi masina, porturile primarului se elibereaza abia cand procesul lui se termina
+        ConfigManager config = ConfigManager.getInstance();
+        awaitPortFree(config.getServerPort());
+        if (config.getStatsPort() > 0) awaitPortFree(config.getStatsPort());
+    }
+
+    private void awaitPortFree(int port) throws IOException {
+        long deadline = System.currentTimeMillis() + failoverMillis;
+        while (true) {
+            try (ServerSocket probe = new ServerSocket(port)) {
+                return;
+            } catch (IOException e) {
+                if (System.currentTimeMillis() >= deadline) {
+                    throw new IOException("port " + port + " still in use after " + failoverMillis + " ms", e);
+                }
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("interrupted while waiting for port " + port, ie);
+                }
+            }
+        }
+    }
+
+    private void follow(DataInputStream in, DataOutputStream out) {
+        BinaryJournal.Record rec = new BinaryJournal.Record();
+        ByteBuffer frame = ByteBuffer.allocate(ConfigManager.getInstance().getReplicationBatchRecords()
+                * BinaryJournal.RECORD_SIZE);
+        try {
+            while (true) {
+                int count = in.readInt();
+                if (count == ReplicationPrimary.BOOTSTRAP) {
+                    bootstrap(in);
+                    continue;
+                }
+                if (count == 0) continue;
+                int bytes = count * BinaryJournal.RECORD_SIZE;
+                if (bytes > frame.capacity()) frame = ByteBuffer.allocate(bytes);
+                in.readFully(frame.array(), 0, bytes);
+                frame.clear().limit(bytes);
+                for (int i = 0; i < count; i++) {
+                    if (rec.read(frame) != BinaryJournal.Record.OK) {
+                        PerformanceMonitor.incrementCounter("replication_corrupt_records");
+                        continue;
+                    }
+                    apply(rec);
+                }
+                applied += count;
+                out.writeLong(applied);
+                out.flush();
+                PerformanceMonitor.incrementCounter("replication_records_applied", count);
+            }
+        } catch (SocketTimeoutException e) {
+            System.err.println("Primary silent for " + failoverMillis + " ms, promoting standby");
+        } catch (IOException e) {
+            System.err.println("Primary connection lost (" + e.getMessage() + "), promoting standby");
+        }
+    }
+
+    // starea primarului de la conectare; evenimentele care urmeaza pot referi ordinele din ea
+    private void bootstrap(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        Checkpoint state = Checkpoint.decode(ByteBuffer.wrap(bytes));
+        if (state == null) throw new IOException("invalid bootstrap state");
+        state.getPrices().forEach((name, price) -> {
+            Instrument inst = instruments.get(name);
+            if (inst != null && price > 0) inst.restorePrice(price);
+        });
+        state.getProfits().forEach((name, profit) -> {
+            Instrument inst = instruments.get(name);
+            if (inst != null) inst.addProfit(profit);
+        });
+        for (Order o : state.getPendingOrders()) {
+            Instrument inst = instruments.get(o.getInstrument());
+            if (inst == null) continue;
+            if (!inst.tryAllocate(o.getVolume())) PerformanceMonitor.incrementCounter("replication_liquidity_mismatch");
+            pending.put(o.getId(), o);
+        }
+        lastOrderId = Math.max(lastOrderId, state.getLastOrderId());
+        lastExecutionId = state.getLastExecutionId();
+        lastCancellationId = state.getLastCancellationId();
+        System.out.println("Standby bootstrapped with " + pending.size() + " pending orders");
+    }
+
+    private void apply(BinaryJournal.Record rec) {
+        lastOrderId = Math.max(lastOrderId, rec.orderId);
+        if (rec.type == BinaryJournal.ORDER) {
+            Instrument inst = instruments.get(rec.instrumentName());
+            if (inst == null) return;
+            if (!inst.tryAllocate(rec.volume)) PerformanceMonitor.incrementCounter("replication_liquidity_mismatch");
+            pending.put(rec.orderId, rec.toOrder());
+        } else if (rec.type == BinaryJournal.EXECUTION || rec.type == BinaryJournal.CANCELLATION) {
+            if (rec.type == BinaryJournal.EXECUTION) lastExecutionId++;
+            else lastCancellationId++;
+            Order o = pending.remove(rec.orderId);
+            if (o == null) {
+                PerformanceMonitor.incrementCounter("replication_unknown_orders");
+                return;
+            }
+            Instrument inst = instruments.get(o.getInstrument());
+            inst.release(o.getVolume());
+            if (rec.type == BinaryJournal.EXECUTION) inst.addProfit(rec.value);
+        }
+    }
+
+    // ordinele ramase in asteptare, cu lichiditatea deja rezervata
+    public List<Order> getPendingOrders() {
+        return new ArrayList<>(pending.values());
+    }
+
+    public int getLastOrderId() {
+        return lastOrderId;
+    }
+
+    public int getLastExecutionId() {
+        return lastExecutionId;
+    }
+
+    public int getLastCancellationId() {
+        return lastCancellationId;
+    }
+}
@@ -0,0 +1,128 @@
+package server;
+
+import utils.ConfigManager;
+import utils.PerformanceMonitor;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// limitele per client la intrarea ordinelor: o rata maxima (token bucket) si un numar maxim de
+// ordine in asteptare. Starea unui client e doar atomica: admiterea costa un get din map si cateva CAS-uri.
+// Clientii inactivi (nimic in asteptare, rafala refacuta) sunt scosi din map cand acesta ajunge la dublul
+// clientilor activi de la ultima curatare, deci id-urile rotite de un client nu il pot creste nelimitat;
+// un client scos porneste la revenire din aceeasi stare, deci limitele nu se schimba.
+public class AdmissionControl {
+    private static final int MIN_SWEEP_SIZE = 1024;
+
+    private final long nanosPerToken;
+    private final long burstNanos;
+    private final int maxInFlight;
+    private final ConcurrentHashMap<Integer, Client> clients = new ConcurrentHashMap<>();
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+    private volatile int sweepAt = MIN_SWEEP_SIZE;
+
+    public AdmissionControl() {
+        ConfigManager config = ConfigManager.getInstance();
+        int rate = config.getClientRateLimit();
+        this.nanosPerToken = rate > 0 ? TimeUnit.SECONDS.toNanos(1) / rate : 0;
+        this.burstNanos = nanosPerToken * Math.max(1, config.getClientBurst());
+        this.maxInFlight = config.getMaxInFlightPerClient();
+    }
+
+    public boolean isEnabled() {
+        return nanosPerToken > 0 || maxInFlight > 0;
+    }
+
+    // WireProtocol.OK daca ordinul poate intra, altfel codul motivului; un ordin admis trebuie eliberat cu release
+    public int admit(int clientId) {
+        if (!isEnabled()) return WireProtocol.OK;
+        if (clients.size() >= sweepAt) sweep();
+        Client c;
+        int inFlight;
+        // o intrare retrasa e scoasa din map imediat dupa; se reia cu intrarea noua
+        while ((inFlight = (c = client(clientId)).acquire()) < 0) Thread.onSpinWait();
+        if (maxInFlight > 0 && inFlight > maxInFlight) {
+            c.inFlight.decrementAndGet();
+            PerformanceMonitor.incrementCounter("orders_rejected_in_flight");
+            return WireProtocol.ERR_IN_FLIGHT;
+        }
+        if (nanosPerToken > 0 && !c.take(System.nanoTime(), nanosPerToken, burstNanos)) {
+            c.inFlight.decrementAndGet();
+            PerformanceMonitor.incrementCounter("orders_rejected_rate_limit");
+            return WireProtocol.ERR_RATE_LIMIT;
+        }
+        return WireProtocol.OK;
+    }
+
+    // ordinul admis s-a finalizat (sau a fost respins dupa admitere); cat timp clientul are ordine
+    // in asteptare, intrarea lui nu poate fi scoasa
+    public void release(int clientId) {
+        if (!isEnabled()) return;
+        Client c = clients.get(clientId);
+        if (c != null) c.inFlight.decrementAndGet();
+    }
+
+    public int inFlight(int clientId) {
+        Client c = clients.get(clientId);
+        return c == null ? 0 : Math.max(0, c.inFlight.get());
+    }
+
+    private Client client(int clientId) {
+        Client c = clients.get(clientId);
+        return c != null ? c : clients.computeIfAbsent(clientId, id -> new Client());
+    }
+
+    // un singur thread curata odata; pragul urmator e dublul clientilor activi gasiti
+    private void sweep() {
+        if (!sweeping.compareAndSet(false, true)) return;
+        try {
+            int evicted = 0;
+            int retained = 0;
+            for (Map.Entry<Integer, Client> e : clients.entrySet()) {
+                if (e.getValue().retire(System.nanoTime()) && clients.remove(e.getKey(), e.getValue())) evicted++;
+                else retained++;
+            }
+            sweepAt = Math.max(MIN_SWEEP_SIZE, 2 * retained);
+            PerformanceMonitor.incrementCounter("admission_clients_evicted", evicted);
+        } finally {
+            sweeping.set(false);
+        }
+    }
+
+    private static class Client {
+        private static final int RETIRED = Integer.MIN_VALUE;
+
+        // ordinele admise si nefinalizate; RETIRED dupa ce intrarea a fost aleasa pentru scoatere
+        private final AtomicInteger inFlight = new AtomicInteger();
+        // token bucket in forma GCRA: momentul teoretic al urmatoarei sosiri conforme
+        private final AtomicLong nextArrival = new AtomicLong(System.nanoTime());
+
+        // noul numar de ordine in asteptare, sau -1 daca intrarea a fost retrasa
+        int acquire() {
+            while (true) {
+                int v = inFlight.get();
+                if (v == RETIRED) return -1;
+                if (inFlight.compareAndSet(v, v + 1)) return v + 1;
+            }
+        }
+
+        // inactiv: nimic in asteptare, iar rafala s-a refacut complet (ca la un client nou)
+        boolean retire(long now) {
+            return nextArrival.get() - now <= 0 && inFlight.compareAndSet(0, RETIRED);
+        }
+
+        // un token se ia daca sosirea nu depaseste rafala permisa fata de ritmul configurat
+        boolean take(long now, long interval, long burst) {
+            while (true) {
+                long tat = nextArrival.get();
+                long next = Math.max(tat, now) + interval;
+                if (next - now > burst) return false;
+                if (nextArrival.compareAndSet(tat, next)) return true;
+            }
+        }
+    }
+}
@@ -1,111 +1,203 @@
 package server;
 
-import engine.OrderRepository;
-import model.Instrument;
-import model.Order;
 import model.OrderStatus;
-import model.OrderType;
-import persistence.OrderRegistry;
+import utils.ConfigManager;
 import utils.PerformanceMonitor;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.net.Socket;
-import java.util.Map;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.nio.ByteBuffer;
+import java.util.concurrent.locks.ReentrantLock;
 
 public class ClientHandler implements Runnable {
 
-    private static final AtomicInteger ID_GEN = new AtomicInteger(1);
-
     private final Socket socket;
-    private final OrderRepository orderRepository;
-    private final Map<String, Instrument> instruments;
-    private final OrderRegistry orderRegistry;
-
-    private static final ExecutorService NOTIFICATION_POOL =
-            Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+    private final OrderHandler orderProcessor;
 
-    public ClientHandler(Socket socket, OrderRepository orderRepository,
-                        Map<String, Instrument> instruments,
-                        OrderRegistry orderRegistry) {
+    public ClientHandler(Socket socket, OrderHandler orderProcessor) {
         this.socket = socket;
-        this.orderRepository = orderRepository;
-        this.instruments = instruments;
-        this.orderRegistry = orderRegistry;
+        this.orderProcessor = orderProcessor;
     }
 
     @Override
     public void run() {
+        try (Socket s = socket) {
+            InputStream in = new BufferedInputStream(s.getInputStream());
+            // primul byte decide protocolul conexiunii
+            in.mark(1);
+            int first = in.read();
+            if (first < 0) return;
+            if (first == WireProtocol.MAGIC || first == WireProtocol.MAGIC_GATEWAY) {
+                runBinary(new DataInputStream(in), s, first == WireProtocol.MAGIC_GATEWAY);
+            } else {
+                in.reset();
+                runCsv(in, s);
+            }
+        } catch (IOException ignored) {
+            System.out.println("Client disconnected");
+        }
+    }
+
+    private void runCsv(InputStream input, Socket s) throws IOException {
         try (
-                BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-                PrintWriter out = new PrintWriter(socket.getOutputStream(), true)
+                BufferedReader in = new BufferedReader(new InputStreamReader(input));
+                PrintWriter out = new PrintWriter(s.getOutputStream(), false)
         ) {
-            String line;
-            while ((line = in.readLine()) != null) {
-                try (PerformanceMonitor.Timer timer = PerformanceMonitor.startTimer("total_request_processing")) {
-                    long startParsing = System.nanoTime();
-                    String[] p = line.split(",");
-                    Order o = new Order(
-                            ID_GEN.getAndIncrement(),
-                            Integer.parseInt(p[0]),
-                            p[1],
-                            OrderType.valueOf(p[2]),
-                            Integer.parseInt(p[3]),
-                            Double.parseDouble(p[4])
-                    );
-                    long endParsing = System.nanoTime();
-                    PerformanceMonitor.recordTiming("request_parsing", endParsing - startParsing);
-
-                    Instrument inst = instruments.get(o.getInstrument());
-
-                    // Verificare lichiditate
-                    long startLiquidity = System.nanoTime();
-                    boolean hasLiquidity = inst.tryAllocate(o.getVolume());
-                    long endLiquidity = System.nanoTime();
-                    PerformanceMonitor.recordTiming("liquidity_check", endLiquidity - startLiquidity);
-
-                    if (!hasLiquidity) {
-                        o.setStatus(OrderStatus.REJECTED);
-                        o.getFuture().complete(OrderStatus.REJECTED);
-
-                        orderRegistry.logOrder(o);
-
-                        PerformanceMonitor.incrementCounter("orders_rejected_no_liquidity");
-                        continue;
-                    }
-
-                    long startAdd = System.nanoTime();
-                    orderRepository.add(o);
-                    long endAdd = System.nanoTime();
-                    PerformanceMonitor.recordTiming("add_to_repository", endAdd - startAdd);
-
-                    out.println("PENDING," + o.getId());
-
-                    // Logging în registry
-                    long startRegistry = System.nanoTime();
-                    orderRegistry.logOrder(o);
-                    long endRegistry = System.nanoTime();
-                    PerformanceMonitor.recordTiming("order_registry_write", endRegistry - startRegistry);
-
-                    PerformanceMonitor.incrementCounter("orders_accepted");
-
-                    int orderId = o.getId();
-                    o.getFuture().thenAcceptAsync(status -> {
-                        out.println("FINAL," + orderId + "," + status);
-                        orderRegistry.updateOrderStatus(orderId, status.toString());
-                    }, NOTIFICATION_POOL);
-                } catch (Exception e) {
-                    PerformanceMonitor.incrementCounter("request_processing_errors");
-                    throw e;
+            // fara autoflush: confirmarile golesc imediat, notificarile FINAL sunt grupate
+            FlushPolicy flush = new FlushPolicy(out::flush);
+            OutboundQueue replies = new OutboundQueue(ReplyChannel.csv(out::println, flush),
+                    orderProcessor.repliesFromOtherThreads(), () -> disconnect(s));
+            flush.lingerOn(replies::execute);
+            try {
+                ReplyChannel channel = orderProcessor.connect(replies);
+                String line;
+                while ((line = in.readLine()) != null) {
+                    long received = System.nanoTime();
+                    orderProcessor.process(line, received, channel);
                 }
+            } finally {
+                replies.close();
+            }
+        }
+    }
+
+    private void runBinary(DataInputStream in, Socket s, boolean rejectCodes) throws IOException {
+        BinaryReplies channel = new BinaryReplies(new BufferedOutputStream(s.getOutputStream()), rejectCodes);
+        OutboundQueue replies = new OutboundQueue(channel, orderProcessor.repliesFromOtherThreads(),
+                () -> disconnect(s));
+        channel.flush.lingerOn(replies::execute);
+        try {
+            readFrames(in, orderProcessor.connect(replies));
+        } finally {
+            replies.close();
+        }
+    }
+
+    // clientul nu mai citeste raspunsurile; citirea conexiunii se termina cu eroare
+    private static void disconnect(Socket s) {
+        try {
+            s.close();
+        } catch (IOException ignored) {}
+    }
+
+    private void readFrames(DataInputStream in, ReplyChannel replies) throws IOException {
+        OrderFrame frame = new OrderFrame();
+        int maxLength = 2 + ConfigManager.getInstance().getMaxOrderBatch() * WireProtocol.ORDER_BODY;
+        ByteBuffer body = ByteBuffer.allocate(Math.min(maxLength, 0xFFFF));
+        while (true) {
+            int length;
+            try {
+                length = in.readUnsignedShort();
+            } catch (EOFException e) {
+                return;
+            }
+            long received = System.nanoTime();
+            if (length != WireProtocol.ORDER_BODY && !WireProtocol.isBatch(length)) {
+                in.skipNBytes(length);
+                replies.error(WireProtocol.ERR_LENGTH);
+                continue;
+            }
+            if (length > body.capacity()) {
+                in.skipNBytes(length);
+                replies.error(WireProtocol.ERR_BATCH);
+                continue;
+            }
+            in.readFully(body.array(), 0, length);
+            body.clear().limit(length);
+            if (length != WireProtocol.ORDER_BODY) {
+                orderProcessor.processBatch(body, length, frame, received, replies);
+                continue;
+            }
+
+            long startParsing = System.nanoTime();
+            int code = WireProtocol.decode(body, frame, orderProcessor.instrumentCount());
+            PerformanceMonitor.recordTiming("request_parsing_binary", System.nanoTime() - startParsing);
+            if (code != WireProtocol.OK) {
+                replies.error(code);
+                continue;
+            }
+            orderProcessor.process(frame, received, replies);
+        }
+    }
+
+    // scrierile vin din thread-ul conexiunii si din cel al cozii OutboundQueue
+    private static class BinaryReplies implements ReplyChannel {
+        private final OutputStream out;
+        private final ByteBuffer buf = ByteBuffer.allocate(WireProtocol.REPLY_FRAME);
+        // scrierile blocheaza pe socket: lock, nu monitor, ca thread-urile virtuale sa nu fixeze purtatorul
+        private final ReentrantLock lock = new ReentrantLock();
+        private final FlushPolicy flush = new FlushPolicy(this::flushStream);
+        private final boolean rejectCodes;
+
+        BinaryReplies(OutputStream out, boolean rejectCodes) {
+            this.out = out;
+            this.rejectCodes = rejectCodes;
+        }
+
+        @Override
+        public void pending(int orderId) {
+            write(WireProtocol.PENDING, orderId, 0);
+            flush.flushNow();
+        }
+
+        @Override
+        public void pendingBatch(int[] orderIds, int count) {
+            ByteBuffer batch = ByteBuffer.allocate(WireProtocol.batchReplyFrame(count));
+            WireProtocol.encodeBatchReply(batch, orderIds, count, rejectCodes);
+            write(batch.array());
+            flush.flushNow();
+        }
+
+        @Override
+        public void completed(int orderId, OrderStatus status) {
+            write(WireProtocol.FINAL, orderId, WireProtocol.statusCode(status));
+            flush.deferred();
+        }
+
+        @Override
+        public void error(int code) {
+            write(WireProtocol.ERROR, 0, code);
+            flush.flushNow();
+        }
+
+        private void write(byte type, int orderId, int code) {
+            lock.lock();
+            try {
+                buf.clear();
+                WireProtocol.encodeReply(buf, type, orderId, code);
+                write(buf.array());
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void write(byte[] frame) {
+            lock.lock();
+            try {
+                out.write(frame, 0, frame.length);
+            } catch (IOException ignored) {
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void flushStream() {
+            lock.lock();
+            try {
+                out.flush();
+            } catch (IOException ignored) {
+            } finally {
+                lock.unlock();
             }
-        } catch (IOException ignored) {
-            System.out.println("Client disconnected");
         }
     }
 }
@@ -0,0 +1,86 @@
+package server;
+
+import utils.ConfigManager;
+import utils.PerformanceMonitor;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+// cand se goleste iesirea unei conexiuni: confirmarile imediat, notificarile FINAL grupate
+// (dupa finalLingerMicros sau la finalMaxBatch mesaje nescrise, care vine primul).
+// Timer-ul e comun tuturor conexiunilor, deci doar preda golirea intarziata: implicit o ruleaza el insusi
+// (flush-ul NIO doar programeaza scrierea), iar o conexiune blocanta o trimite thread-ului ei de scriere
+public class FlushPolicy {
+    private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "reply-flusher");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final Runnable flush;
+    private final long lingerMicros;
+    private final int maxBatch;
+    private volatile Executor linger = Runnable::run;
+    // flush-ul poate scrie pe socket; cu un monitor, un thread virtual blocat aici si-ar fixa purtatorul
+    private final ReentrantLock lock = new ReentrantLock();
+    private int unflushed;
+    private boolean scheduled;
+
+    public FlushPolicy(Runnable flush) {
+        this(flush, ConfigManager.getInstance().getFinalLingerMicros(), ConfigManager.getInstance().getFinalMaxBatch());
+    }
+
+    public FlushPolicy(Runnable flush, long lingerMicros, int maxBatch) {
+        this.flush = flush;
+        this.lingerMicros = lingerMicros;
+        this.maxBatch = maxBatch;
+    }
+
+    // unde ruleaza golirea dupa finalLingerMicros; pentru un flush care poate bloca pe socket
+    public void lingerOn(Executor executor) {
+        this.linger = executor;
+    }
+
+    public void flushNow() {
+        lock.lock();
+        try {
+            unflushed = 0;
+            flush.run();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void deferred() {
+        lock.lock();
+        try {
+            unflushed++;
+            if (lingerMicros <= 0 || unflushed >= maxBatch) {
+                flushNow();
+                PerformanceMonitor.incrementCounter("final_flushes");
+                return;
+            }
+            if (!scheduled) {
+                scheduled = true;
+                TIMER.schedule(() -> linger.execute(this::onLinger), lingerMicros, TimeUnit.MICROSECONDS);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void onLinger() {
+        lock.lock();
+        try {
+            scheduled = false;
+            if (unflushed == 0) return;
+            flushNow();
+            PerformanceMonitor.incrementCounter("final_flushes");
+        } finally {
+            lock.unlock();
+        }
+    }
+}
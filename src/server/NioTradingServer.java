@@ -0,0 +1,313 @@
+package server;
+
+import model.OrderStatus;
+import utils.ConfigManager;
+import utils.PerformanceMonitor;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// server non-blocant: un thread accepta conexiunile, iar un numar fix de event loop-uri
+// (cate un Selector fiecare) citesc liniile si scriu raspunsurile; protocolul e acelasi ca la ClientHandler
+public class NioTradingServer {
+    private static final int READ_BUFFER_SIZE = 8192;
+    // cate buffere de iesire sunt scrise cu un singur apel (gathering write)
+    private static final int MAX_GATHER = 64;
+
+    private final ConfigManager config;
+    private final OrderHandler orderProcessor;
+    private final EventLoop[] loops;
+    private final int readBufferSize;
+
+    public NioTradingServer(OrderHandler orderProcessor) throws IOException {
+        this.orderProcessor = orderProcessor;
+        this.config=ConfigManager.getInstance();
+        // un lot maxim trebuie sa incapa in buffer-ul de citire
+        this.readBufferSize = Math.max(READ_BUFFER_SIZE, 4 + config.getMaxOrderBatch() * WireProtocol.ORDER_BODY);
+        this.loops = new EventLoop[Math.max(1, config.getNioEventLoops())];
+        for (int i = 0; i < loops.length; i++) loops[i] = new EventLoop(i);
+    }
+
+    public void start() throws Exception {
+        for (EventLoop loop : loops) loop.thread.start();
+
+        ServerSocketChannel server = ServerSocketChannel.open();
+        int port = config.getServerPort();
+        server.bind(new InetSocketAddress(port));
+        System.out.println("Server started on port " + port + " (NIO, " + loops.length + " event loops)");
+        int next = 0;
+        while (true) {
+            SocketChannel ch = server.accept();
+            ch.configureBlocking(false);
+            ch.socket().setTcpNoDelay(true);
+            loops[next].register(ch);
+            next = (next + 1) % loops.length;
+            PerformanceMonitor.incrementCounter("nio_connections_accepted");
+        }
+    }
+
+    private class EventLoop implements Runnable {
+        private final Selector selector;
+        private final Thread thread;
+        private final Queue<SocketChannel> newChannels = new ConcurrentLinkedQueue<>();
+        private final Queue<Connection> flushQueue = new ConcurrentLinkedQueue<>();
+
+        EventLoop(int index) throws IOException {
+            this.selector = Selector.open();
+            this.thread = new Thread(this, "nio-loop-" + index);
+            this.thread.setDaemon(true);
+        }
+
+        void register(SocketChannel ch) {
+            newChannels.add(ch);
+            selector.wakeup();
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                try {
+                    selector.select();
+                    registerNewChannels();
+
+                    Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                    while (it.hasNext()) {
+                        SelectionKey key = it.next();
+                        it.remove();
+                        Connection conn = (Connection) key.attachment();
+                        if (!key.isValid()) continue;
+                        if (key.isReadable()) conn.onReadable();
+                        if (key.isValid() && key.isWritable()) conn.flush();
+                    }
+
+                    Connection conn;
+                    while ((conn = flushQueue.poll()) != null) conn.flush();
+                } catch (Exception e) {
+                    PerformanceMonitor.incrementCounter("nio_loop_errors");
+                    e.printStackTrace();
+                }
+            }
+        }
+
+        private void registerNewChannels() throws IOException {
+            SocketChannel ch;
+            while ((ch = newChannels.poll()) != null) {
+                SelectionKey key = ch.register(selector, SelectionKey.OP_READ);
+                key.attach(new Connection(this, ch, key));
+            }
+        }
+    }
+
+    private class Connection {
+        private final EventLoop loop;
+        private final SocketChannel channel;
+        private final SelectionKey key;
+        private final ByteBuffer readBuf = ByteBuffer.allocate(readBufferSize);
+        private final ByteBuffer[] gather = new ByteBuffer[MAX_GATHER];
+        private final FlushPolicy flushPolicy = new FlushPolicy(this::scheduleFlush);
+        // coada de iesire a conexiunii: FINAL vine direct din thread-ul care finalizeaza ordinul,
+        // deci coada e thread-safe; event loop-ul e singurul care o goleste
+        private final Queue<ByteBuffer> outbound = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+        private final OrderFrame frame = new OrderFrame();
+        private ReplyChannel replies;
+        private boolean binary;
+        // bytes ramasi dintr-un cadru prea lung pentru buffer, care se sare
+        private int skipping;
+
+        Connection(EventLoop loop, SocketChannel channel, SelectionKey key) {
+            this.loop = loop;
+            this.channel = channel;
+            this.key = key;
+        }
+
+        void onReadable() {
+            try {
+                int n = channel.read(readBuf);
+                if (n < 0) {
+                    close();
+                    return;
+                }
+                long received = System.nanoTime();
+                readBuf.flip();
+                if (replies == null && readBuf.hasRemaining()) negotiate();
+                if (binary) readFrames(received);
+                else readLines(received);
+                readBuf.compact();
+                // linie mai lunga decat buffer-ul: input invalid
+                if (!readBuf.hasRemaining()) close();
+            } catch (Exception e) {
+                // ca la ClientHandler: raspunsurile deja date ajung la client, apoi conexiunea se inchide
+                flush();
+                close();
+            }
+        }
+
+        // primul byte decide protocolul conexiunii
+        private void negotiate() {
+            int first = readBuf.get(readBuf.position()) & 0xFF;
+            binary = first == WireProtocol.MAGIC || first == WireProtocol.MAGIC_GATEWAY;
+            if (binary) {
+                readBuf.get();
+                replies = orderProcessor.connect(new BinaryReplies(first == WireProtocol.MAGIC_GATEWAY));
+            } else {
+                replies = orderProcessor.connect(ReplyChannel.csv(
+                        msg -> send(ByteBuffer.wrap((msg + "\n").getBytes(StandardCharsets.US_ASCII))), flushPolicy));
+            }
+        }
+
+        private void readLines(long received) {
+            byte[] arr = readBuf.array();
+            int start = readBuf.position();
+            for (int i = start; i < readBuf.limit(); i++) {
+                if (arr[i] != '\n') continue;
+                int end = i > start && arr[i - 1] == '\r' ? i - 1 : i;
+                String line = new String(arr, start, end - start, StandardCharsets.US_ASCII);
+                start = i + 1;
+                orderProcessor.process(line, received, replies);
+            }
+            readBuf.position(start);
+        }
+
+        // cadrele sunt decodate direct din readBuf, fara copii sau alocari
+        private void readFrames(long received) {
+            if (skipping > 0 && !skip()) return;
+            while (readBuf.remaining() >= 2) {
+                int length = readBuf.getShort(readBuf.position()) & 0xFFFF;
+                if (readBuf.remaining() < 2 + length) {
+                    if (2 + length <= readBuf.capacity()) return;
+                    // cadru mai lung decat buffer-ul: se sare peste el, pe parcursul mai multor citiri,
+                    // cu aceeasi eroare ca la ClientHandler
+                    replies.error(WireProtocol.isBatch(length) ? WireProtocol.ERR_BATCH : WireProtocol.ERR_LENGTH);
+                    skipping = 2 + length;
+                    skip();
+                    return;
+                }
+                readBuf.position(readBuf.position() + 2);
+                if (length != WireProtocol.ORDER_BODY) {
+                    if (WireProtocol.isBatch(length)) {
+                        orderProcessor.processBatch(readBuf, length, frame, received, replies);
+                    } else {
+                        readBuf.position(readBuf.position() + length);
+                        replies.error(WireProtocol.ERR_LENGTH);
+                    }
+                    continue;
+                }
+                long startParsing = System.nanoTime();
+                int code = WireProtocol.decode(readBuf, frame, orderProcessor.instrumentCount());
+                PerformanceMonitor.recordTiming("request_parsing_binary", System.nanoTime() - startParsing);
+                if (code != WireProtocol.OK) replies.error(code);
+                else orderProcessor.process(frame, received, replies);
+            }
+        }
+
+        // true daca s-a terminat de sarit cadrul
+        private boolean skip() {
+            int n = Math.min(skipping, readBuf.remaining());
+            readBuf.position(readBuf.position() + n);
+            skipping -= n;
+            return skipping == 0;
+        }
+
+        // doar pune raspunsul in coada; scrierea o declanseaza FlushPolicy
+        void send(ByteBuffer buf) {
+            outbound.add(buf);
+        }
+
+        void scheduleFlush() {
+            if (flushScheduled.compareAndSet(false, true)) {
+                loop.flushQueue.add(this);
+                if (Thread.currentThread() != loop.thread) loop.selector.wakeup();
+            }
+        }
+
+        void flush() {
+            flushScheduled.set(false);
+            try {
+                while (!outbound.isEmpty()) {
+                    int n = 0;
+                    for (ByteBuffer buf : outbound) {
+                        gather[n++] = buf;
+                        if (n == MAX_GATHER) break;
+                    }
+                    channel.write(gather, 0, n);
+                    int done = 0;
+                    while (done < n && !gather[done].hasRemaining()) {
+                        outbound.poll();
+                        done++;
+                    }
+                    Arrays.fill(gather, 0, n, null);
+                    if (done < n) {
+                        // socket-ul e plin: se continua cand devine writable
+                        key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                        return;
+                    }
+                }
+                if (key.isValid()) key.interestOps(SelectionKey.OP_READ);
+            } catch (Exception e) {
+                close();
+            }
+        }
+
+        void close() {
+            if (!channel.isOpen()) return;
+            key.cancel();
+            try {
+                channel.close();
+            } catch (IOException ignored) {}
+            outbound.clear();
+            System.out.println("Client disconnected");
+        }
+
+        private class BinaryReplies implements ReplyChannel {
+            private final boolean rejectCodes;
+
+            BinaryReplies(boolean rejectCodes) {
+                this.rejectCodes = rejectCodes;
+            }
+
+            @Override
+            public void pending(int orderId) {
+                reply(WireProtocol.PENDING, orderId, 0);
+                flushPolicy.flushNow();
+            }
+
+            @Override
+            public void pendingBatch(int[] orderIds, int count) {
+                ByteBuffer buf = ByteBuffer.allocate(WireProtocol.batchReplyFrame(count));
+                WireProtocol.encodeBatchReply(buf, orderIds, count, rejectCodes);
+                send(buf.flip());
+                flushPolicy.flushNow();
+            }
+
+            @Override
+            public void completed(int orderId, OrderStatus status) {
+                reply(WireProtocol.FINAL, orderId, WireProtocol.statusCode(status));
+                flushPolicy.deferred();
+            }
+
+            @Override
+            public void error(int code) {
+                reply(WireProtocol.ERROR, 0, code);
+                flushPolicy.flushNow();
+            }
+
+            private void reply(byte type, int orderId, int code) {
+                ByteBuffer buf = ByteBuffer.allocate(WireProtocol.REPLY_FRAME);
+                WireProtocol.encodeReply(buf, type, orderId, code);
+                send(buf.flip());
+            }
+        }
+    }
+}
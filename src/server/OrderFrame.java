@@ -0,0 +1,16 @@
+package server;
+
+// cadru de ordin binar decodat; o singura instanta refolosita per conexiune
+public class OrderFrame {
+    int clientId;
+    int instrumentId;
+    byte side;
+    int volume;
+    long price;
+
+    public int getClientId() { return clientId; }
+    public int getInstrumentId() { return instrumentId; }
+    public byte getSide() { return side; }
+    public int getVolume() { return volume; }
+    public long getPrice() { return price; }
+}
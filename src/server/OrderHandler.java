@@ -0,0 +1,27 @@
+package server;
+
+import java.nio.ByteBuffer;
+
+// ce face serverul cu ordinele citite de pe o conexiune: le prelucreaza local (OrderProcessor)
+// sau, in modul gateway, le trimite motorului care detine instrumentul (OrderRouter)
+public interface OrderHandler {
+    // true daca si confirmarile sunt trimise din alte thread-uri decat cel care citeste conexiunea
+    default boolean repliesFromOtherThreads() {
+        return false;
+    }
+
+    // apelat o data per conexiune; raspunsurile conexiunii trebuie trimise prin canalul intors
+    default ReplyChannel connect(ReplyChannel out) {
+        return out;
+    }
+
+    // id-urile de instrument valide in cadrele binare sunt 0..instrumentCount()-1
+    int instrumentCount();
+
+    void process(String line, long received, ReplyChannel out);
+
+    void process(OrderFrame f, long received, ReplyChannel out);
+
+    // corpul unui cadru de lot binar, pozitionat dupa lungime; pozitia ajunge la finalul cadrului
+    void processBatch(ByteBuffer body, int length, OrderFrame frame, long received, ReplyChannel out);
+}
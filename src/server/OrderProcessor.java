@@ -0,0 +1,284 @@
+package server;
+
+import engine.EpochGate;
+import engine.OrderIntake;
+import model.Instrument;
+import model.LifecycleStage;
+import model.Order;
+import model.OrderStatus;
+import model.OrderType;
+import persistence.OrderRegistry;
+import utils.ConfigManager;
+import utils.LifecycleTracer;
+import utils.PerformanceMonitor;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// prelucrarea unei linii de ordin, comuna pentru ClientHandler (socket blocant) si NioTradingServer
+public class OrderProcessor implements OrderHandler {
+
+    private static final String CSV_BATCH_PREFIX = "BATCH;";
+
+    private static final int NO_LIQUIDITY = -1;
+
+    private static final AtomicInteger ID_GEN = new AtomicInteger(1);
+    // cu mai multe partitii, fiecare motor foloseste alta clasa de resturi, ca id-urile sa fie unice global
+    private static final int ID_STRIDE = Math.max(1, ConfigManager.getInstance().getPartitionCount());
+    private static final int ID_OFFSET = ConfigManager.getInstance().getPartitionIndex();
+
+    private final OrderIntake orderIntake;
+    private final Map<String, Instrument> instruments;
+    private final OrderRegistry orderRegistry;
+    private final Instrument[] instrumentsById;
+    private final EpochGate gate;
+    private final AdmissionControl admission = new AdmissionControl();
+    private final int maxOrderBatch = ConfigManager.getInstance().getMaxOrderBatch();
+
+    // dupa recuperarea din jurnal, id-urile noi continua dupa ultimul ordin cunoscut
+    public static void resumeIdsAfter(int lastOrderId) {
+        ID_GEN.accumulateAndGet(lastOrderId / ID_STRIDE + 1, Math::max);
+    }
+
+    // ultimul id emis (0 daca nu s-a emis niciunul), salvat in checkpoint
+    public static int lastIssuedId() {
+        int seq = ID_GEN.get() - 1;
+        return seq == 0 ? 0 : seq * ID_STRIDE + ID_OFFSET;
+    }
+
+    public OrderProcessor(OrderIntake orderIntake, Map<String, Instrument> instruments,
+                          OrderRegistry orderRegistry, EpochGate gate) {
+        this.orderIntake = orderIntake;
+        this.gate = gate;
+        this.instruments = instruments;
+        this.orderRegistry = orderRegistry;
+        this.instrumentsById = new Instrument[instruments.values().stream().mapToInt(Instrument::getId).max().orElse(-1) + 1];
+        instruments.values().forEach(i -> instrumentsById[i.getId()] = i);
+    }
+
+    @Override
+    public int instrumentCount() {
+        return instrumentsById.length;
+    }
+
+    // linie CSV: clientId,instrument,BUY|SELL,volume,limitPrice
+    // sau un lot pe o singura linie: BATCH;<ordin>;<ordin>;...
+    @Override
+    public void process(String line, long received, ReplyChannel out) {
+        if (line.startsWith(CSV_BATCH_PREFIX)) {
+            processBatch(line, received, out);
+            return;
+        }
+        try (PerformanceMonitor.Timer timer = PerformanceMonitor.startTimer("total_request_processing")) {
+            Order o = parse(line);
+            Instrument inst = instruments.get(o.getInstrument());
+            reply(o, accept(o, inst, received), out);
+        } catch (Exception e) {
+            PerformanceMonitor.incrementCounter("request_processing_errors");
+            throw e;
+        }
+    }
+
+    // cadru binar deja decodat si validat de WireProtocol.decode
+    @Override
+    public void process(OrderFrame f, long received, ReplyChannel out) {
+        try (PerformanceMonitor.Timer timer = PerformanceMonitor.startTimer("total_request_processing")) {
+            // instrument din alta partitie
+            if (instrumentsById[f.getInstrumentId()] == null) {
+                out.error(WireProtocol.ERR_INSTRUMENT);
+                return;
+            }
+            Order o = toOrder(f);
+            reply(o, accept(o, instrumentsById[f.getInstrumentId()], received), out);
+        } catch (Exception e) {
+            PerformanceMonitor.incrementCounter("request_processing_errors");
+            throw e;
+        }
+    }
+
+    // lot CSV; un ordin invalid din lot primeste 0 in confirmare, restul merg mai departe
+    private void processBatch(String line, long received, ReplyChannel out) {
+        try (PerformanceMonitor.Timer timer = PerformanceMonitor.startTimer("total_request_processing")) {
+            String[] parts = line.split(";");
+            int count = parts.length - 1;
+            if (count > maxOrderBatch) throw new IllegalArgumentException("Batch too large: " + count);
+            int[] ids = new int[count];
+            Order[] accepted = new Order[count];
+            for (int i = 0; i < count; i++) {
+                try {
+                    Order o = parse(parts[i + 1]);
+                    Instrument inst = instruments.get(o.getInstrument());
+                    if (inst != null) accepted[i] = acceptInBatch(o, inst, received, ids, i);
+                } catch (RuntimeException e) {
+                    PerformanceMonitor.incrementCounter("batch_orders_invalid");
+                }
+            }
+            acknowledgeBatch(ids, accepted, count, out);
+        } catch (Exception e) {
+            PerformanceMonitor.incrementCounter("request_processing_errors");
+            throw e;
+        }
+    }
+
+    @Override
+    public void processBatch(ByteBuffer body, int length, OrderFrame frame, long received, ReplyChannel out) {
+        try (PerformanceMonitor.Timer timer = PerformanceMonitor.startTimer("total_request_processing")) {
+            int end = body.position() + length;
+            int count = body.getShort() & 0xFFFF;
+            if (count != WireProtocol.batchCount(length) || count > maxOrderBatch) {
+                body.position(end);
+                out.error(WireProtocol.ERR_BATCH);
+                return;
+            }
+            int[] ids = new int[count];
+            Order[] accepted = new Order[count];
+            for (int i = 0; i < count; i++) {
+                long startParsing = System.nanoTime();
+                int code = WireProtocol.decode(body, frame, instrumentsById.length);
+                PerformanceMonitor.recordTiming("request_parsing_binary", System.nanoTime() - startParsing);
+                if (code == WireProtocol.OK && instrumentsById[frame.getInstrumentId()] == null) code = WireProtocol.ERR_INSTRUMENT;
+                if (code != WireProtocol.OK) {
+                    PerformanceMonitor.incrementCounter("batch_orders_invalid");
+                    continue;
+                }
+                accepted[i] = acceptInBatch(toOrder(frame), instrumentsById[frame.getInstrumentId()], received, ids, i);
+            }
+            acknowledgeBatch(ids, accepted, count, out);
+        } catch (Exception e) {
+            PerformanceMonitor.incrementCounter("request_processing_errors");
+            throw e;
+        }
+    }
+
+    // ordinul acceptat sau null; in ids[slot] pune id-ul, 0 sau -codul respingerii la admitere
+    private Order acceptInBatch(Order o, Instrument inst, long received, int[] ids, int slot) {
+        int code = accept(o, inst, received);
+        if (code == WireProtocol.OK) {
+            ids[slot] = o.getId();
+            return o;
+        }
+        if (code != NO_LIQUIDITY) ids[slot] = -code;
+        return null;
+    }
+
+    private static int nextId() {
+        return ID_GEN.getAndIncrement() * ID_STRIDE + ID_OFFSET;
+    }
+
+    // vizibil in pachet pentru benchmark-uri
+    Order parse(String line) {
+        long startParsing = System.nanoTime();
+        String[] p = line.split(",");
+        Order o = new Order(
+                nextId(),
+                Integer.parseInt(p[0]),
+                p[1],
+                OrderType.valueOf(p[2]),
+                Integer.parseInt(p[3]),
+                Double.parseDouble(p[4])
+        );
+        long endParsing = System.nanoTime();
+        PerformanceMonitor.recordTiming("request_parsing", endParsing - startParsing);
+        return o;
+    }
+
+    private Order toOrder(OrderFrame f) {
+        return new Order(
+                nextId(),
+                f.getClientId(),
+                instrumentsById[f.getInstrumentId()].getName(),
+                f.getSide() == 0 ? OrderType.BUY : OrderType.SELL,
+                f.getVolume(),
+                f.getPrice() / (double) WireProtocol.PRICE_SCALE
+        );
+    }
+
+    // o singura confirmare pentru tot lotul, apoi notificarile FINAL pentru ordinele acceptate
+    private void acknowledgeBatch(int[] ids, Order[] accepted, int count, ReplyChannel out) {
+        out.pendingBatch(ids, count);
+        for (int i = 0; i < count; i++) {
+            if (accepted[i] != null) acknowledged(accepted[i], out);
+        }
+        PerformanceMonitor.incrementCounter("order_batches");
+    }
+
+    // raspunsul pentru un ordin singular; respingerea din lipsa de lichiditate ramane fara raspuns
+    private void reply(Order o, int code, ReplyChannel out) {
+        if (code == WireProtocol.OK) {
+            out.pending(o.getId());
+            acknowledged(o, out);
+        } else if (code != NO_LIQUIDITY) {
+            out.rejected(code);
+        }
+    }
+
+    // WireProtocol.OK daca ordinul a intrat, altfel motivul respingerii; confirmarea o trimite apelantul
+    private int accept(Order o, Instrument inst, long received) {
+        if (LifecycleTracer.sample()) o.startTrace(received);
+
+        // Control de admitere per client, inainte de a rezerva lichiditate
+        int admitted = admission.admit(o.getClientId());
+        if (admitted != WireProtocol.OK) {
+            o.setStatus(OrderStatus.REJECTED);
+            o.getFuture().complete(OrderStatus.REJECTED);
+            return admitted;
+        }
+
+        // Verificare lichiditate
+        long startLiquidity = System.nanoTime();
+        boolean hasLiquidity;
+        gate.enter();
+        try {
+            hasLiquidity = inst.tryAllocate(o.getVolume());
+        } finally {
+            gate.exit();
+        }
+        long endLiquidity = System.nanoTime();
+        PerformanceMonitor.recordTiming("liquidity_check", endLiquidity - startLiquidity);
+
+        if (!hasLiquidity) {
+            o.setStatus(OrderStatus.REJECTED);
+            o.getFuture().complete(OrderStatus.REJECTED);
+
+            orderRegistry.logOrder(o);
+            admission.release(o.getClientId());
+
+            PerformanceMonitor.incrementCounter("orders_rejected_no_liquidity");
+            return NO_LIQUIDITY;
+        }
+
+        o.mark(LifecycleStage.ACCEPTED);
+
+        // Logging în registry, înainte ca ordinul să ajungă la motor
+        long startRegistry = System.nanoTime();
+        orderRegistry.logOrder(o);
+        long endRegistry = System.nanoTime();
+        PerformanceMonitor.recordTiming("order_registry_write", endRegistry - startRegistry);
+
+        long startAdd = System.nanoTime();
+        orderIntake.submit(o);
+        long endAdd = System.nanoTime();
+        PerformanceMonitor.recordTiming("add_to_repository", endAdd - startAdd);
+        return WireProtocol.OK;
+    }
+
+    // dupa confirmare: notificarea FINAL se ataseaza abia acum, ca sa nu ajunga inaintea lui PENDING.
+    // Callback-ul ruleaza pe thread-ul care finalizeaza ordinul, dupa iesirea din sectiunea EpochGate:
+    // FINAL e pus in coada de iesire a conexiunii, iar actualizarea registrului e pusa in coada jurnalului
+    // fara asteptare (pierduta daca e plina), deci un disc lent nu opreste matching-ul
+    private void acknowledged(Order o, ReplyChannel out) {
+        o.mark(LifecycleStage.ACKED);
+
+        PerformanceMonitor.incrementCounter("orders_accepted");
+
+        int orderId = o.getId();
+        o.getFuture().thenAccept(status -> {
+            out.completed(orderId, status);
+            o.mark(LifecycleStage.NOTIFIED);
+            LifecycleTracer.report(o);
+            admission.release(o.getClientId());
+            orderRegistry.updateOrderStatus(orderId, status.toString());
+        });
+    }
+}
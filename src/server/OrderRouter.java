@@ -0,0 +1,454 @@
+package server;
+
+import model.Instrument;
+import model.OrderStatus;
+import utils.ConfigManager;
+import utils.PerformanceMonitor;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+// modul gateway: ordinele clientilor sunt trimise, dupa instrument, motorului care il detine
+// (un alt JVM pe loopback), iar confirmarile si notificarile FINAL se intorc la conexiunea de origine.
+// Fiecare ordin pleaca spre motor ca lot binar de un element, ca sa primeasca mereu exact o confirmare
+// (id 0 = respins, -cod = respins la admitere, vezi WireProtocol.MAGIC_GATEWAY); confirmarile unei legaturi
+// vin in ordinea trimiterii, deci o coada FIFO le potriveste.
+// Raspunsurile catre un client pleaca in ordinea cererilor lui, chiar daca motoarele raspund in alta ordine.
+// O legatura cazuta raspunde ERR_INSTRUMENT ordinelor ei si se reconecteaza in fundal.
+public class OrderRouter implements OrderHandler {
+    private static final String CSV_BATCH_PREFIX = "BATCH;";
+    private static final int FORWARD_FRAME = 2 + 2 + WireProtocol.ORDER_BODY;
+    private static final long RECONNECT_MIN_MILLIS = 100;
+    private static final long RECONNECT_MAX_MILLIS = 5000;
+
+    private final Map<String, Instrument> instruments;
+    // pentru fiecare id de instrument, legaturile catre motorul care il detine (null = nerutat)
+    private final EngineLink[][] linksByInstrument;
+    // ordinele confirmate care asteapta FINAL, dupa id
+    private final ConcurrentHashMap<Integer, Route> routes = new ConcurrentHashMap<>();
+    private final int maxOrderBatch = ConfigManager.getInstance().getMaxOrderBatch();
+
+    public OrderRouter(Map<String, Instrument> instruments) throws IOException {
+        ConfigManager config = ConfigManager.getInstance();
+        this.instruments = instruments;
+        this.linksByInstrument = new EngineLink[instruments.values().stream().mapToInt(Instrument::getId).max().orElse(-1) + 1][];
+        int linksPerEngine = Math.max(1, config.getGatewayLinksPerEngine());
+        Map<Integer, EngineLink[]> engines = new HashMap<>();
+        for (Map.Entry<String, Integer> e : config.getGatewayRoutes().entrySet()) {
+            Instrument inst = instruments.get(e.getKey());
+            if (inst == null) throw new IllegalArgumentException("Unknown instrument in gatewayRoutes: " + e.getKey());
+            EngineLink[] links = engines.get(e.getValue());
+            if (links == null) {
+                links = new EngineLink[linksPerEngine];
+                for (int i = 0; i < linksPerEngine; i++) links[i] = new EngineLink(e.getValue(), i);
+                engines.put(e.getValue(), links);
+            }
+            linksByInstrument[inst.getId()] = links;
+        }
+        System.out.println("Gateway connected to " + engines.size() + " engine(s): " + config.getGatewayRoutes());
+    }
+
+    // fiecare conexiune primeste un Sequencer, care pastreaza ordinea raspunsurilor ei
+    @Override
+    public ReplyChannel connect(ReplyChannel out) {
+        return new Sequencer(out);
+    }
+
+    @Override
+    public boolean repliesFromOtherThreads() {
+        return true;
+    }
+
+    @Override
+    public int instrumentCount() {
+        return linksByInstrument.length;
+    }
+
+    // acelasi format CSV ca OrderProcessor; un ordin singular respins ramane fara raspuns, ca la motor,
+    // in afara respingerilor la admitere (REJECTED,<motiv>)
+    @Override
+    public void process(String line, long received, ReplyChannel out) {
+        try (PerformanceMonitor.Timer timer = PerformanceMonitor.startTimer("gateway_routing")) {
+            if (line.startsWith(CSV_BATCH_PREFIX)) {
+                String[] parts = line.split(";");
+                int count = parts.length - 1;
+                if (count > maxOrderBatch) throw new IllegalArgumentException("Batch too large: " + count);
+                BatchReply batch = new BatchReply(sequencer(out), count);
+                OrderFrame f = new OrderFrame();
+                for (int i = 0; i < count; i++) {
+                    boolean valid;
+                    try {
+                        valid = parse(parts[i + 1], f);
+                    } catch (RuntimeException e) {
+                        valid = false;
+                    }
+                    if (valid) forward(f, batch, i);
+                    else batch.set(i, 0);
+                }
+                return;
+            }
+            OrderFrame f = new OrderFrame();
+            if (!parse(line, f)) throw new IllegalArgumentException("Invalid order: " + line);
+            forward(f, new BatchReply(sequencer(out)), 0);
+        }
+    }
+
+    @Override
+    public void process(OrderFrame f, long received, ReplyChannel out) {
+        try (PerformanceMonitor.Timer timer = PerformanceMonitor.startTimer("gateway_routing")) {
+            Sequencer seq = sequencer(out);
+            if (linksByInstrument[f.getInstrumentId()] == null) {
+                seq.error(WireProtocol.ERR_INSTRUMENT);
+                return;
+            }
+            forward(f, new BatchReply(seq), 0);
+        }
+    }
+
+    @Override
+    public void processBatch(ByteBuffer body, int length, OrderFrame frame, long received, ReplyChannel out) {
+        try (PerformanceMonitor.Timer timer = PerformanceMonitor.startTimer("gateway_routing")) {
+            int end = body.position() + length;
+            int count = body.getShort() & 0xFFFF;
+            Sequencer seq = sequencer(out);
+            if (count != WireProtocol.batchCount(length) || count > maxOrderBatch) {
+                body.position(end);
+                seq.error(WireProtocol.ERR_BATCH);
+                return;
+            }
+            BatchReply batch = new BatchReply(seq, count);
+            for (int i = 0; i < count; i++) {
+                int code = WireProtocol.decode(body, frame, linksByInstrument.length);
+                if (code == WireProtocol.OK && linksByInstrument[frame.getInstrumentId()] != null) {
+                    forward(frame, batch, i);
+                } else {
+                    batch.set(i, 0);
+                }
+            }
+        }
+    }
+
+    // false pentru un instrument necunoscut sau nerutat
+    private boolean parse(String line, OrderFrame f) {
+        String[] p = line.split(",");
+        Instrument inst = instruments.get(p[1]);
+        if (inst == null || linksByInstrument[inst.getId()] == null) return false;
+        f.clientId = Integer.parseInt(p[0]);
+        f.instrumentId = inst.getId();
+        f.side = switch (p[2]) {
+            case "BUY" -> 0;
+            case "SELL" -> 1;
+            default -> throw new IllegalArgumentException("Invalid side: " + p[2]);
+        };
+        f.volume = Integer.parseInt(p[3]);
+        f.price = Math.round(Double.parseDouble(p[4]) * WireProtocol.PRICE_SCALE);
+        return f.volume > 0 && f.price > 0;
+    }
+
+    // ordinele unui client merg mereu pe aceeasi legatura, ca sa-si pastreze ordinea
+    private void forward(OrderFrame f, BatchReply batch, int slot) {
+        EngineLink[] links = linksByInstrument[f.getInstrumentId()];
+        links[Math.floorMod(f.getClientId(), links.length)].send(f, new Forward(batch, slot));
+        PerformanceMonitor.incrementCounter("gateway_orders_forwarded");
+    }
+
+    // fara connect (ex. apelat direct), ordinea e garantata doar in cadrul unei cereri
+    private static Sequencer sequencer(ReplyChannel out) {
+        return out instanceof Sequencer seq ? seq : new Sequencer(out);
+    }
+
+    // FINAL e trimis clientului abia dupa confirmare; daca motorul il trimite inainte ca ordinul
+    // sa fi fost confirmat clientului (confirmari anterioare inca asteptate), e pastrat pana atunci
+    private static class Route {
+        private final ReplyChannel out;
+        private final EngineLink link;
+        private boolean acked;
+        private OrderStatus early;
+
+        Route(ReplyChannel out, EngineLink link) {
+            this.out = out;
+            this.link = link;
+        }
+    }
+
+    private void acked(int orderId, Route route) {
+        OrderStatus status;
+        synchronized (route) {
+            route.acked = true;
+            status = route.early;
+        }
+        if (status != null) {
+            routes.remove(orderId);
+            route.out.completed(orderId, status);
+        }
+    }
+
+    private void completed(int orderId, OrderStatus status) {
+        Route route = routes.get(orderId);
+        if (route == null) return;
+        synchronized (route) {
+            if (!route.acked) {
+                route.early = status;
+                return;
+            }
+        }
+        routes.remove(orderId);
+        route.out.completed(orderId, status);
+    }
+
+    // un ordin trimis motorului si inca neconfirmat
+    private record Forward(BatchReply batch, int slot) {}
+
+    // raspunsurile unei conexiuni, eliberate strict in ordinea cererilor; ruleaza sub lock,
+    // dar canalele clientilor doar pun raspunsul in coada conexiunii
+    private static class Sequencer implements ReplyChannel {
+        private final ReplyChannel out;
+        private final ArrayDeque<Ticket> tickets = new ArrayDeque<>();
+
+        Sequencer(ReplyChannel out) {
+            this.out = out;
+        }
+
+        // erorile de cadru vin direct din server, ca raspuns la o cerere, deci isi asteapta randul
+        @Override
+        public void error(int code) {
+            ready(next(), ch -> ch.error(code));
+        }
+
+        @Override
+        public void rejected(int reason) {
+            ready(next(), ch -> ch.rejected(reason));
+        }
+
+        @Override
+        public void pending(int orderId) {
+            ready(next(), ch -> ch.pending(orderId));
+        }
+
+        @Override
+        public void pendingBatch(int[] orderIds, int count) {
+            ready(next(), ch -> ch.pendingBatch(orderIds, count));
+        }
+
+        // FINAL nu raspunde unei cereri; ordinea fata de confirmare o asigura Route
+        @Override
+        public void completed(int orderId, OrderStatus status) {
+            out.completed(orderId, status);
+        }
+
+        synchronized Ticket next() {
+            Ticket t = new Ticket();
+            tickets.add(t);
+            return t;
+        }
+
+        synchronized void ready(Ticket t, Consumer<ReplyChannel> reply) {
+            t.reply = reply;
+            while (!tickets.isEmpty() && tickets.peek().reply != null) tickets.poll().reply.accept(out);
+        }
+    }
+
+    private static class Ticket {
+        private Consumer<ReplyChannel> reply;
+    }
+
+    // confirmarea unei cereri a clientului (ordin singular sau lot), trimisa cand au raspuns
+    // toate motoarele implicate si toate cererile anterioare ale conexiunii
+    private class BatchReply {
+        private final Sequencer seq;
+        private final Ticket ticket;
+        private final boolean single;
+        private final int[] ids;
+        private final AtomicInteger remaining;
+
+        BatchReply(Sequencer seq) {
+            this(seq, 1, true);
+        }
+
+        BatchReply(Sequencer seq, int count) {
+            this(seq, count, false);
+        }
+
+        private BatchReply(Sequencer seq, int count, boolean single) {
+            this.seq = seq;
+            this.ticket = seq.next();
+            this.single = single;
+            this.ids = new int[count];
+            this.remaining = new AtomicInteger(count);
+            if (count == 0) seq.ready(ticket, ch -> ch.pendingBatch(ids, 0));
+        }
+
+        void set(int slot, int orderId) {
+            ids[slot] = orderId;
+            if (remaining.decrementAndGet() != 0) return;
+            seq.ready(ticket, ch -> {
+                if (!single) ch.pendingBatch(ids, ids.length);
+                else if (ids[0] > 0) ch.pending(ids[0]);
+                else if (WireProtocol.isAdmissionReject(-ids[0])) ch.rejected(-ids[0]);
+                else if (ids[0] < 0) ch.error(-ids[0]);
+                for (int id : ids) {
+                    if (id <= 0) continue;
+                    Route route = routes.get(id);
+                    if (route != null) acked(id, route);
+                }
+            });
+        }
+    }
+
+    // o conexiune binara catre un motor: scrierile vin din thread-urile clientilor, citirea are thread propriu,
+    // care o si reface dupa o cadere
+    private class EngineLink implements Runnable {
+        private final int port;
+        private final ByteBuffer frame = ByteBuffer.allocate(FORWARD_FRAME);
+        private final Queue<Forward> inFlight = new ConcurrentLinkedQueue<>();
+        // socket-ul si fluxurile lui; schimbate doar sub lock-ul legaturii
+        private Socket socket;
+        private OutputStream out;
+        private DataInputStream in;
+        private boolean up;
+
+        EngineLink(int port, int index) throws IOException {
+            this.port = port;
+            open();
+            Thread reader = new Thread(this, "gateway-link-" + port + "-" + index);
+            reader.setDaemon(true);
+            reader.start();
+        }
+
+        private void open() throws IOException {
+            Socket s = new Socket(InetAddress.getLoopbackAddress(), port);
+            s.setTcpNoDelay(true);
+            OutputStream o = new BufferedOutputStream(s.getOutputStream());
+            o.write(WireProtocol.MAGIC_GATEWAY);
+            o.flush();
+            synchronized (this) {
+                socket = s;
+                out = o;
+                in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+                up = true;
+            }
+        }
+
+        // coada si socket-ul sunt actualizate sub acelasi lock, deci ordinea lor e aceeasi
+        synchronized void send(OrderFrame f, Forward fwd) {
+            if (!up) {
+                PerformanceMonitor.incrementCounter("gateway_orders_unroutable");
+                fwd.batch().set(fwd.slot(), -WireProtocol.ERR_INSTRUMENT);
+                return;
+            }
+            frame.clear();
+            frame.putShort((short) (2 + WireProtocol.ORDER_BODY)).putShort((short) 1)
+                    .putInt(f.getClientId())
+                    .putInt(f.getInstrumentId())
+                    .put(f.getSide())
+                    .putInt(f.getVolume())
+                    .putLong(f.getPrice());
+            inFlight.add(fwd);
+            try {
+                out.write(frame.array(), 0, FORWARD_FRAME);
+                out.flush();
+            } catch (IOException e) {
+                // thread-ul de citire observa socket-ul inchis si raspunde ordinelor in zbor, inclusiv acestuia
+                try {
+                    socket.close();
+                } catch (IOException ignored) {}
+            }
+        }
+
+        @Override
+        public void run() {
+            long backoff = RECONNECT_MIN_MILLIS;
+            while (true) {
+                if (!isUp()) {
+                    try {
+                        open();
+                        System.out.println("Gateway reconnected to engine on port " + port);
+                        backoff = RECONNECT_MIN_MILLIS;
+                    } catch (IOException e) {
+                        try {
+                            Thread.sleep(backoff);
+                        } catch (InterruptedException ie) {
+                            return;
+                        }
+                        backoff = Math.min(RECONNECT_MAX_MILLIS, backoff * 2);
+                        continue;
+                    }
+                }
+                try {
+                    read();
+                } catch (IOException e) {
+                    lost(e);
+                }
+            }
+        }
+
+        private void read() throws IOException {
+            DataInputStream in;
+            synchronized (this) {
+                in = this.in;
+            }
+            while (true) {
+                int length = in.readUnsignedShort();
+                byte type = in.readByte();
+                if (type == WireProtocol.BATCH) {
+                    int n = in.readUnsignedShort();
+                    for (int i = 0; i < n; i++) acknowledged(in.readInt());
+                } else if (type == WireProtocol.FINAL) {
+                    int orderId = in.readInt();
+                    completed(orderId, WireProtocol.status(in.readUnsignedByte()));
+                } else if (type == WireProtocol.ERROR) {
+                    in.skipNBytes(length - 1);
+                    acknowledged(0);
+                } else {
+                    in.skipNBytes(length - 1);
+                }
+            }
+        }
+
+        private synchronized boolean isUp() {
+            return up;
+        }
+
+        private synchronized void closeSocket() {
+            up = false;
+            try {
+                socket.close();
+            } catch (IOException ignored) {}
+        }
+
+        // ordinele neconfirmate primesc ERR_INSTRUMENT; FINAL-urile asteptate pe legatura nu mai vin
+        private void lost(IOException e) {
+            System.err.println("Gateway lost engine on port " + port + ": " + e.getMessage());
+            PerformanceMonitor.incrementCounter("gateway_link_failures");
+            closeSocket();
+            Forward fwd;
+            while ((fwd = inFlight.poll()) != null) reply(fwd, -WireProtocol.ERR_INSTRUMENT);
+            routes.values().removeIf(route -> route.link == this);
+        }
+
+        private void acknowledged(int orderId) {
+            Forward fwd = inFlight.poll();
+            if (fwd == null) return;
+            if (orderId > 0) routes.put(orderId, new Route(fwd.batch().seq.out, this));
+            reply(fwd, orderId);
+        }
+
+        private void reply(Forward fwd, int orderId) {
+            fwd.batch().set(fwd.slot(), orderId);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package server;
+
+import model.OrderStatus;
+import utils.ConfigManager;
+import utils.PerformanceMonitor;
+import utils.VirtualThreads;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Consumer;
+
+// notificarile FINAL ale unei conexiuni blocante: thread-ul care finalizeaza ordinul doar le pune in coada,
+// iar un singur thread al conexiunii le scrie, in ordine, cate un lot odata. Un client lent
+// blocheaza doar propriul thread, nu si notificarile celorlalti clienti.
+// Cand toate raspunsurile vin din alte thread-uri (modul gateway), si confirmarile trec prin coada.
+// Coada e limitata (outboundQueueSize): un client care nu citeste e deconectat, nu tinut in memorie.
+public class OutboundQueue implements ReplyChannel, Runnable {
+    private static final int MAX_BATCH = 256;
+    // pus in coada de close(), ca thread-ul sa se opreasca fara sa verifice periodic
+    private static final Consumer<ReplyChannel> STOP = ch -> {};
+
+    private final ReplyChannel direct;
+    private final boolean queueAll;
+    private final BlockingQueue<Consumer<ReplyChannel>> replies;
+    // inchide conexiunea; apelat o singura data, cand coada se umple
+    private final Runnable onOverflow;
+    private volatile boolean closed;
+
+    public OutboundQueue(ReplyChannel direct, boolean queueAll, Runnable onOverflow) {
+        this.direct = direct;
+        this.queueAll = queueAll;
+        this.onOverflow = onOverflow;
+        this.replies = new ArrayBlockingQueue<>(Math.max(1, ConfigManager.getInstance().getOutboundQueueSize()));
+        VirtualThreads.start(this);
+    }
+
+    // altfel confirmarile si erorile se scriu direct, din thread-ul care citeste conexiunea
+    @Override
+    public void pending(int orderId) {
+        if (queueAll) enqueue(ch -> ch.pending(orderId));
+        else direct.pending(orderId);
+    }
+
+    @Override
+    public void pendingBatch(int[] orderIds, int count) {
+        if (queueAll) {
+            int[] ids = Arrays.copyOf(orderIds, count);
+            enqueue(ch -> ch.pendingBatch(ids, count));
+        } else {
+            direct.pendingBatch(orderIds, count);
+        }
+    }
+
+    @Override
+    public void error(int code) {
+        if (queueAll) enqueue(ch -> ch.error(code));
+        else direct.error(code);
+    }
+
+    @Override
+    public void rejected(int reason) {
+        if (queueAll) enqueue(ch -> ch.rejected(reason));
+        else direct.rejected(reason);
+    }
+
+    @Override
+    public void completed(int orderId, OrderStatus status) {
+        enqueue(ch -> ch.completed(orderId, status));
+    }
+
+    // o sarcina rulata pe thread-ul de scriere, in ordine cu raspunsurile deja puse in coada
+    public void execute(Runnable task) {
+        enqueue(ch -> task.run());
+    }
+
+    private void enqueue(Consumer<ReplyChannel> reply) {
+        if (closed || replies.offer(reply)) return;
+        synchronized (this) {
+            if (closed) return;
+            close();
+        }
+        PerformanceMonitor.incrementCounter("outbound_queue_overflow");
+        onOverflow.run();
+    }
+
+    @Override
+    public void run() {
+        List<Consumer<ReplyChannel>> batch = new ArrayList<>(MAX_BATCH);
+        while (true) {
+            try {
+                batch.add(replies.take());
+                replies.drainTo(batch, MAX_BATCH - 1);
+                for (Consumer<ReplyChannel> reply : batch) {
+                    if (reply == STOP) return;
+                    reply.accept(direct);
+                }
+                PerformanceMonitor.recordTiming("outbound_batch_size", batch.size());
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    public void close() {
+        closed = true;
+        do {
+            replies.clear();
+        } while (!replies.offer(STOP));
+    }
+}
@@ -0,0 +1,55 @@
+package server;
+
+import model.OrderStatus;
+
+import java.util.function.Consumer;
+
+// raspunsurile catre o conexiune, codificate dupa protocolul negociat (CSV sau binar);
+// completed() e apelat pe thread-ul care finalizeaza ordinul, deci nu trebuie sa blocheze
+public interface ReplyChannel {
+    void pending(int orderId);
+
+    // o singura confirmare pentru un lot; 0 pe pozitiile ordinelor respinse, sau -cod pentru cele
+    // respinse la admitere (clientii obisnuiti primesc tot 0, vezi WireProtocol.MAGIC_GATEWAY)
+    void pendingBatch(int[] orderIds, int count);
+
+    void completed(int orderId, OrderStatus status);
+
+    // cadru binar invalid; protocolul CSV inchide conexiunea in schimb
+    default void error(int code) {}
+
+    // ordin respins la admitere; in binar e un raspuns 'E' cu codul motivului
+    default void rejected(int reason) {
+        error(reason);
+    }
+
+    static ReplyChannel csv(Consumer<String> out, FlushPolicy flush) {
+        return new ReplyChannel() {
+            @Override
+            public void pending(int orderId) {
+                out.accept("PENDING," + orderId);
+                flush.flushNow();
+            }
+
+            @Override
+            public void pendingBatch(int[] orderIds, int count) {
+                StringBuilder sb = new StringBuilder("PENDING_BATCH");
+                for (int i = 0; i < count; i++) sb.append(',').append(Math.max(0, orderIds[i]));
+                out.accept(sb.toString());
+                flush.flushNow();
+            }
+
+            @Override
+            public void completed(int orderId, OrderStatus status) {
+                out.accept("FINAL," + orderId + "," + status);
+                flush.deferred();
+            }
+
+            @Override
+            public void rejected(int reason) {
+                out.accept("REJECTED," + WireProtocol.rejectReason(reason));
+                flush.flushNow();
+            }
+        };
+    }
+}
@@ -0,0 +1,113 @@
+package server;
+
+import model.OrderStatus;
+
+import java.nio.ByteBuffer;
+
+// protocolul binar, negociat prin primul byte al conexiunii (MAGIC); altfel conexiunea ramane CSV
+//
+// cerere:  short lungime(=21) | int id_client | int id_instrument | byte side (0=BUY, 1=SELL)
+//          | int volum | long pret * PRICE_SCALE
+// raspuns: short lungime(=6) | byte tip ('P' PENDING, 'F' FINAL, 'E' eroare) | int id_ordin
+//          | byte status (ordinalul OrderStatus pentru 'F', codul erorii pentru 'E')
+//
+// lot:     short lungime(=2 + 21*n) | short n | n corpuri de ordin ca mai sus
+// confirmare lot: short lungime(=3 + 4*n) | byte 'B' | short n | n x int id_ordin (0 = respins sau invalid)
+//
+// MAGIC_GATEWAY negociaza acelasi protocol pentru legaturile unui gateway catre motor; singura diferenta:
+// in confirmarea de lot, un ordin respins la admitere are -cod in loc de 0, ca motivul sa ajunga la client
+public final class WireProtocol {
+    public static final int MAGIC = 0xFE;
+    public static final int MAGIC_GATEWAY = 0xFD;
+    public static final int ORDER_BODY = 21;
+    public static final int REPLY_BODY = 6;
+    public static final int REPLY_FRAME = 2 + REPLY_BODY;
+    public static final long PRICE_SCALE = 10_000;
+
+    public static final byte PENDING = 'P';
+    public static final byte FINAL = 'F';
+    public static final byte ERROR = 'E';
+    public static final byte BATCH = 'B';
+
+    public static final int OK = 0;
+    public static final int ERR_LENGTH = 1;
+    public static final int ERR_INSTRUMENT = 2;
+    public static final int ERR_SIDE = 3;
+    public static final int ERR_VOLUME = 4;
+    public static final int ERR_PRICE = 5;
+    public static final int ERR_BATCH = 6;
+    // respingeri ale controlului de admitere (AdmissionControl)
+    public static final int ERR_RATE_LIMIT = 7;
+    public static final int ERR_IN_FLIGHT = 8;
+
+    private WireProtocol() {}
+
+    // motivul unei respingeri, asa cum apare in protocolul CSV
+    public static String rejectReason(int code) {
+        return switch (code) {
+            case ERR_RATE_LIMIT -> "RATE_LIMIT";
+            case ERR_IN_FLIGHT -> "IN_FLIGHT";
+            default -> String.valueOf(code);
+        };
+    }
+
+    // citeste corpul unui cadru de la pozitia curenta, fara alocari; pozitia avanseaza cu ORDER_BODY
+    public static int decode(ByteBuffer buf, OrderFrame into, int instrumentCount) {
+        into.clientId = buf.getInt();
+        into.instrumentId = buf.getInt();
+        into.side = buf.get();
+        into.volume = buf.getInt();
+        into.price = buf.getLong();
+        if (into.instrumentId < 0 || into.instrumentId >= instrumentCount) return ERR_INSTRUMENT;
+        if (into.side != 0 && into.side != 1) return ERR_SIDE;
+        if (into.volume <= 0) return ERR_VOLUME;
+        if (into.price <= 0) return ERR_PRICE;
+        return OK;
+    }
+
+    public static void encodeOrder(ByteBuffer buf, int clientId, int instrumentId, byte side, int volume, double price) {
+        buf.putShort((short) ORDER_BODY)
+                .putInt(clientId)
+                .putInt(instrumentId)
+                .put(side)
+                .putInt(volume)
+                .putLong(Math.round(price * PRICE_SCALE));
+    }
+
+    // un cadru de lot are dupa lungime numarul de ordine, iar lungimea trebuie sa se potriveasca exact
+    public static boolean isBatch(int length) {
+        return length > 2 && (length - 2) % ORDER_BODY == 0;
+    }
+
+    public static int batchCount(int length) {
+        return (length - 2) / ORDER_BODY;
+    }
+
+    public static int batchReplyFrame(int count) {
+        return 2 + 3 + 4 * count;
+    }
+
+    // id-urile negative (coduri de respingere, vezi ReplyChannel.pendingBatch) devin 0, in afara de MAGIC_GATEWAY
+    public static void encodeBatchReply(ByteBuffer buf, int[] orderIds, int count, boolean rejectCodes) {
+        buf.putShort((short) (3 + 4 * count)).put(BATCH).putShort((short) count);
+        for (int i = 0; i < count; i++) buf.putInt(rejectCodes ? orderIds[i] : Math.max(0, orderIds[i]));
+    }
+
+    public static boolean isAdmissionReject(int code) {
+        return code == ERR_RATE_LIMIT || code == ERR_IN_FLIGHT;
+    }
+
+    public static void encodeReply(ByteBuffer buf, byte type, int orderId, int code) {
+        buf.putShort((short) REPLY_BODY).put(type).putInt(orderId).put((byte) code);
+    }
+
+    public static int statusCode(OrderStatus status) {
+        return status.ordinal();
+    }
+
+    private static final OrderStatus[] STATUSES = OrderStatus.values();
+
+    public static OrderStatus status(int code) {
+        return STATUSES[code];
+    }
+}
@@ -2,6 +2,10 @@ package utils;
 
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 
 public class ConfigManager {
@@ -10,9 +14,54 @@ public class ConfigManager {
 
     private int threadNo;
     private int orderExpTimeSeconds;
+    private int expiryTickMillis;
     private int auditIntervalSeconds;
     private int serverRunningTimeSeconds;
     private int botNo;
+    private int orderArchiveSize;
+    private String matchingMode;
+    private int ringBufferSize;
+    private int journalCommitMillis;
+    private boolean journalFsync;
+    private int journalQueueSize;
+    private boolean binaryJournal;
+    private String binaryJournalDir;
+    private int binaryJournalSegmentMb;
+    private int checkpointIntervalSeconds;
+    private int statsPort;
+    private int statsWindowMillis;
+    private int statsWindowCount;
+    private int traceSampleRate;
+    private String serverMode;
+    private int serverPort;
+    private String nodeRole;
+    private String partitionInstruments;
+    private int partitionIndex;
+    private int partitionCount;
+    private String gatewayRoutes;
+    private int gatewayLinksPerEngine;
+    private String replicationRole;
+    private int replicationPort;
+    private boolean replicationSync;
+    private int replicationBatchRecords;
+    private int replicationHeartbeatMillis;
+    private int replicationFailoverMillis;
+    private int nioEventLoops;
+    private String threadMode;
+    private int finalLingerMicros;
+    private int finalMaxBatch;
+    private int outboundQueueSize;
+    private int maxOrderBatch;
+    private int clientRateLimit;
+    private int clientBurst;
+    private int maxInFlightPerClient;
+    private int auditDumpEveryCycles;
+    private int snapshotIntervalMillis;
+    private String loadGenRates;
+    private int loadGenConnections;
+    private int loadGenStepSeconds;
+    private long loadGenSeed;
+    private String loadGenInstruments;
 
     private double mu;
     private double sigma;
@@ -37,9 +86,54 @@ public class ConfigManager {
 
             threadNo = Integer.parseInt(properties.getProperty("threadNo", "4"));
             orderExpTimeSeconds = Integer.parseInt(properties.getProperty("orderExpTimeSeconds", "60"));
+            expiryTickMillis = Integer.parseInt(properties.getProperty("expiryTickMillis", "10"));
             auditIntervalSeconds = Integer.parseInt(properties.getProperty("auditIntervalSeconds", "10"));
             serverRunningTimeSeconds = Integer.parseInt(properties.getProperty("serverRunningTimeSeconds", "300"));
             botNo = Integer.parseInt(properties.getProperty("botNo", "5"));
+            orderArchiveSize = Integer.parseInt(properties.getProperty("orderArchiveSize", "10000"));
+            matchingMode = properties.getProperty("matchingMode", "tick");
+            ringBufferSize = Integer.parseInt(properties.getProperty("ringBufferSize", "4096"));
+            journalCommitMillis = Integer.parseInt(properties.getProperty("journalCommitMillis", "5"));
+            journalFsync = Boolean.parseBoolean(properties.getProperty("journalFsync", "false"));
+            journalQueueSize = Integer.parseInt(properties.getProperty("journalQueueSize", "65536"));
+            binaryJournal = Boolean.parseBoolean(properties.getProperty("binaryJournal", "true"));
+            binaryJournalDir = properties.getProperty("binaryJournalDir", "journal");
+            binaryJournalSegmentMb = Integer.parseInt(properties.getProperty("binaryJournalSegmentMb", "64"));
+            checkpointIntervalSeconds = Integer.parseInt(properties.getProperty("checkpointIntervalSeconds", "30"));
+            statsPort = Integer.parseInt(properties.getProperty("statsPort", "5001"));
+            statsWindowMillis = Integer.parseInt(properties.getProperty("statsWindowMillis", "1000"));
+            statsWindowCount = Integer.parseInt(properties.getProperty("statsWindowCount", "60"));
+            traceSampleRate = Integer.parseInt(properties.getProperty("traceSampleRate", "10"));
+            serverMode = properties.getProperty("serverMode", "blocking");
+            serverPort = Integer.parseInt(properties.getProperty("serverPort", "5000"));
+            nodeRole = properties.getProperty("nodeRole", "standalone").trim();
+            partitionInstruments = properties.getProperty("partitionInstruments", "").trim();
+            partitionIndex = Integer.parseInt(properties.getProperty("partitionIndex", "0"));
+            partitionCount = Integer.parseInt(properties.getProperty("partitionCount", "1"));
+            gatewayRoutes = properties.getProperty("gatewayRoutes", "").trim();
+            gatewayLinksPerEngine = Integer.parseInt(properties.getProperty("gatewayLinksPerEngine", "2"));
+            replicationRole = properties.getProperty("replicationRole", "none").trim();
+            replicationPort = Integer.parseInt(properties.getProperty("replicationPort", "5300"));
+            replicationSync = Boolean.parseBoolean(properties.getProperty("replicationSync", "false"));
+            replicationBatchRecords = Integer.parseInt(properties.getProperty("replicationBatchRecords", "1024"));
+            replicationHeartbeatMillis = Integer.parseInt(properties.getProperty("replicationHeartbeatMillis", "100"));
+            replicationFailoverMillis = Integer.parseInt(properties.getProperty("replicationFailoverMillis", "1000"));
+            nioEventLoops = Integer.parseInt(properties.getProperty("nioEventLoops", "2"));
+            threadMode = properties.getProperty("threadMode", "platform");
+            finalLingerMicros = Integer.parseInt(properties.getProperty("finalLingerMicros", "500"));
+            finalMaxBatch = Integer.parseInt(properties.getProperty("finalMaxBatch", "64"));
+            outboundQueueSize = Integer.parseInt(properties.getProperty("outboundQueueSize", "16384"));
+            maxOrderBatch = Integer.parseInt(properties.getProperty("maxOrderBatch", "512"));
+            clientRateLimit = Integer.parseInt(properties.getProperty("clientRateLimit", "0"));
+            clientBurst = Integer.parseInt(properties.getProperty("clientBurst", "100"));
+            maxInFlightPerClient = Integer.parseInt(properties.getProperty("maxInFlightPerClient", "0"));
+            auditDumpEveryCycles = Integer.parseInt(properties.getProperty("auditDumpEveryCycles", "10"));
+            snapshotIntervalMillis = Integer.parseInt(properties.getProperty("snapshotIntervalMillis", "1000"));
+            loadGenRates = properties.getProperty("loadGenRates", "").trim();
+            loadGenConnections = Integer.parseInt(properties.getProperty("loadGenConnections", "4"));
+            loadGenStepSeconds = Integer.parseInt(properties.getProperty("loadGenStepSeconds", "10"));
+            loadGenSeed = Long.parseLong(properties.getProperty("loadGenSeed", "42"));
+            loadGenInstruments = properties.getProperty("loadGenInstruments", "AAPL:100,BTC:30000,ETH:2000");
 
             mu = Double.parseDouble(properties.getProperty("mu", "0.05"));
             sigma = Double.parseDouble(properties.getProperty("sigma", "1.0"));
@@ -49,9 +143,46 @@ public class ConfigManager {
             System.out.println("Configuration loaded successfully:");
             System.out.println("Number of threads: " + threadNo);
             System.out.println("Order expires after seconds: " + orderExpTimeSeconds);
+            System.out.println("Expiry tick millis: " + expiryTickMillis);
             System.out.println("Audit interval seconds: " + auditIntervalSeconds);
             System.out.println("Server running time in seconds: " + serverRunningTimeSeconds);
             System.out.println("Number of bots: " + botNo);
+            System.out.println("Order archive size: " + orderArchiveSize);
+            System.out.println("Matching mode: " + matchingMode);
+            System.out.println("Ring buffer size: " + ringBufferSize);
+            System.out.println("Journal commit millis: " + journalCommitMillis);
+            System.out.println("Journal fsync: " + journalFsync);
+            System.out.println("Journal queue size: " + journalQueueSize);
+            System.out.println("Binary journal: " + binaryJournal + " (" + binaryJournalDir + ")");
+            System.out.println("Binary journal segment MB: " + binaryJournalSegmentMb);
+            System.out.println("Checkpoint interval seconds: " + checkpointIntervalSeconds);
+            System.out.println("Stats port: " + statsPort);
+            System.out.println("Stats window millis: " + statsWindowMillis);
+            System.out.println("Stats window count: " + statsWindowCount);
+            System.out.println("Lifecycle trace sample rate: 1/" + traceSampleRate);
+            System.out.println("Server mode: " + serverMode);
+            System.out.println("Server port: " + serverPort);
+            System.out.println("Node role: " + nodeRole);
+            System.out.println("Partition instruments: " + (partitionInstruments.isEmpty() ? "all" : partitionInstruments)
+                    + " (partition " + partitionIndex + " of " + partitionCount + ")");
+            System.out.println("Gateway routes: " + (gatewayRoutes.isEmpty() ? "none" : gatewayRoutes)
+                    + ", links per engine: " + gatewayLinksPerEngine);
+            System.out.println("Replication: " + replicationRole + " (port " + replicationPort
+                    + (replicationSync ? ", synchronous" : ", asynchronous") + ", batch " + replicationBatchRecords
+                    + ", heartbeat " + replicationHeartbeatMillis + " ms, failover " + replicationFailoverMillis + " ms)");
+            System.out.println("NIO event loops: " + nioEventLoops);
+            System.out.println("Thread mode: " + threadMode);
+            System.out.println("FINAL linger micros: " + finalLingerMicros);
+            System.out.println("FINAL max batch: " + finalMaxBatch);
+            System.out.println("Outbound queue size: " + outboundQueueSize);
+            System.out.println("Max order batch: " + maxOrderBatch);
+            System.out.println("Client rate limit: " + (clientRateLimit > 0 ? clientRateLimit + "/s, burst " + clientBurst : "disabled"));
+            System.out.println("Max in-flight per client: " + (maxInFlightPerClient > 0 ? maxInFlightPerClient : "disabled"));
+            System.out.println("Audit dump every cycles: " + auditDumpEveryCycles);
+            System.out.println("Snapshot interval millis: " + snapshotIntervalMillis);
+            System.out.println("Load generator rates: " + (loadGenRates.isEmpty() ? "disabled" : loadGenRates));
+            System.out.println("Load generator connections: " + loadGenConnections);
+            System.out.println("Load generator step seconds: " + loadGenStepSeconds);
             System.out.println("MU: " + mu);
             System.out.println("SIGMA: " + sigma);
             System.out.println("DT: " + dt);
@@ -62,9 +193,54 @@ public class ConfigManager {
             e.printStackTrace();
             threadNo = 6;
             orderExpTimeSeconds = 30;
+            expiryTickMillis = 10;
             auditIntervalSeconds = 2;
             serverRunningTimeSeconds = 180;
             botNo = 5;
+            orderArchiveSize = 10000;
+            matchingMode = "tick";
+            ringBufferSize = 4096;
+            journalCommitMillis = 5;
+            journalFsync = false;
+            journalQueueSize = 65536;
+            binaryJournal = true;
+            binaryJournalDir = "journal";
+            binaryJournalSegmentMb = 64;
+            checkpointIntervalSeconds = 30;
+            statsPort = 5001;
+            statsWindowMillis = 1000;
+            statsWindowCount = 60;
+            traceSampleRate = 10;
+            serverMode = "blocking";
+            serverPort = 5000;
+            nodeRole = "standalone";
+            partitionInstruments = "";
+            partitionIndex = 0;
+            partitionCount = 1;
+            gatewayRoutes = "";
+            gatewayLinksPerEngine = 2;
+            replicationRole = "none";
+            replicationPort = 5300;
+            replicationSync = false;
+            replicationBatchRecords = 1024;
+            replicationHeartbeatMillis = 100;
+            replicationFailoverMillis = 1000;
+            nioEventLoops = 2;
+            threadMode = "platform";
+            finalLingerMicros = 500;
+            finalMaxBatch = 64;
+            outboundQueueSize = 16384;
+            maxOrderBatch = 512;
+            clientRateLimit = 0;
+            clientBurst = 100;
+            maxInFlightPerClient = 0;
+            auditDumpEveryCycles = 10;
+            snapshotIntervalMillis = 1000;
+            loadGenRates = "";
+            loadGenConnections = 4;
+            loadGenStepSeconds = 10;
+            loadGenSeed = 42;
+            loadGenInstruments = "AAPL:100,BTC:30000,ETH:2000";
             mu = 0.05;
             sigma = 1.0;
             dt = 1.0;
@@ -83,6 +259,10 @@ public class ConfigManager {
         return orderExpTimeSeconds;
     }
 
+    public int getExpiryTickMillis() {
+        return expiryTickMillis;
+    }
+
     public int getAuditIntervalSeconds() {
         return auditIntervalSeconds;
     }
@@ -95,6 +275,218 @@ public class ConfigManager {
         return botNo;
     }
 
+    public int getOrderArchiveSize() {
+        return orderArchiveSize;
+    }
+
+    public boolean isEventMatching() {
+        return "event".equalsIgnoreCase(matchingMode);
+    }
+
+    public int getRingBufferSize() {
+        return ringBufferSize;
+    }
+
+    public int getJournalCommitMillis() {
+        return journalCommitMillis;
+    }
+
+    public boolean isJournalFsync() {
+        return journalFsync;
+    }
+
+    public int getJournalQueueSize() {
+        return journalQueueSize;
+    }
+
+    public boolean isBinaryJournal() {
+        return binaryJournal;
+    }
+
+    public String getBinaryJournalDir() {
+        return binaryJournalDir;
+    }
+
+    public int getBinaryJournalSegmentMb() {
+        return binaryJournalSegmentMb;
+    }
+
+    // la cate secunde se scrie checkpoint-ul starii din jurnalul binar (0 = dezactivat)
+    public int getCheckpointIntervalSeconds() {
+        return checkpointIntervalSeconds;
+    }
+
+    public int getStatsPort() {
+        return statsPort;
+    }
+
+    public int getStatsWindowMillis() {
+        return statsWindowMillis;
+    }
+
+    public int getStatsWindowCount() {
+        return statsWindowCount;
+    }
+
+    public int getTraceSampleRate() {
+        return traceSampleRate;
+    }
+
+    public boolean isNioServer() {
+        return "nio".equalsIgnoreCase(serverMode);
+    }
+
+    public int getServerPort() {
+        return serverPort;
+    }
+
+    // standalone (implicit): totul intr-un JVM; gateway: doar rutare catre motoare; engine: o partitie
+    public boolean isGateway() {
+        return "gateway".equalsIgnoreCase(nodeRole);
+    }
+
+    public boolean isEngineNode() {
+        return "engine".equalsIgnoreCase(nodeRole);
+    }
+
+    // instrumentele detinute de acest proces (gol = toate)
+    public List<String> getPartitionInstruments() {
+        if (partitionInstruments.isEmpty()) return List.of();
+        return Arrays.stream(partitionInstruments.split(",")).map(String::trim).toList();
+    }
+
+    public int getPartitionIndex() {
+        return partitionIndex;
+    }
+
+    public int getPartitionCount() {
+        return partitionCount;
+    }
+
+    // instrument -> portul motorului pe loopback, ex. AAPL:5001,ETH:5001,BTC:5002
+    public Map<String, Integer> getGatewayRoutes() {
+        Map<String, Integer> routes = new LinkedHashMap<>();
+        if (gatewayRoutes.isEmpty()) return routes;
+        for (String entry : gatewayRoutes.split(",")) {
+            String[] p = entry.trim().split(":");
+            routes.put(p[0], Integer.parseInt(p[1]));
+        }
+        return routes;
+    }
+
+    public int getGatewayLinksPerEngine() {
+        return gatewayLinksPerEngine;
+    }
+
+    // none (implicit) | primary: trimite evenimentele standby-ului | standby: le aplica si preia la nevoie
+    public boolean isReplicationPrimary() {
+        return "primary".equalsIgnoreCase(replicationRole);
+    }
+
+    public boolean isReplicationStandby() {
+        return "standby".equalsIgnoreCase(replicationRole);
+    }
+
+    public int getReplicationPort() {
+        return replicationPort;
+    }
+
+    // true: fiecare eveniment asteapta confirmarea standby-ului
+    public boolean isReplicationSync() {
+        return replicationSync;
+    }
+
+    public int getReplicationBatchRecords() {
+        return replicationBatchRecords;
+    }
+
+    public int getReplicationHeartbeatMillis() {
+        return replicationHeartbeatMillis;
+    }
+
+    public int getReplicationFailoverMillis() {
+        return replicationFailoverMillis;
+    }
+
+    public int getNioEventLoops() {
+        return nioEventLoops;
+    }
+
+    public boolean isVirtualThreadMode() {
+        return "virtual".equalsIgnoreCase(threadMode);
+    }
+
+    public int getFinalLingerMicros() {
+        return finalLingerMicros;
+    }
+
+    public int getFinalMaxBatch() {
+        return finalMaxBatch;
+    }
+
+    // raspunsuri nescrise per conexiune blocanta; la depasire conexiunea e inchisa
+    public int getOutboundQueueSize() {
+        return outboundQueueSize;
+    }
+
+    public int getMaxOrderBatch() {
+        return maxOrderBatch;
+    }
+
+    // ordine pe secunda per client (0 = fara limita)
+    public int getClientRateLimit() {
+        return clientRateLimit;
+    }
+
+    public int getClientBurst() {
+        return clientBurst;
+    }
+
+    // ordine in asteptare per client (0 = fara limita)
+    public int getMaxInFlightPerClient() {
+        return maxInFlightPerClient;
+    }
+
+    // lista completa a ordinelor PENDING apare in audit.log doar la fiecare al N-lea ciclu (0 = doar la cerere)
+    public int getAuditDumpEveryCycles() {
+        return auditDumpEveryCycles;
+    }
+
+    public int getSnapshotIntervalMillis() {
+        return snapshotIntervalMillis;
+    }
+
+    // rata tinta (ordine/secunda) pentru fiecare treapta a generatorului de sarcina; gol = roboti obisnuiti.
+    // O rata zero sau negativa ar da un interval infinit intre ordine, deci e respinsa
+    public int[] getLoadGenRates() {
+        if (loadGenRates.isEmpty()) return new int[0];
+        int[] rates = Arrays.stream(loadGenRates.split(",")).map(String::trim).mapToInt(Integer::parseInt).toArray();
+        for (int rate : rates) {
+            if (rate <= 0) throw new IllegalArgumentException("loadGenRates must be positive: " + loadGenRates);
+        }
+        return rates;
+    }
+
+    public boolean isLoadGen() {
+        return !loadGenRates.isEmpty();
+    }
+
+    public int getLoadGenConnections() {
+        return loadGenConnections;
+    }
+
+    public int getLoadGenStepSeconds() {
+        return loadGenStepSeconds;
+    }
+
+    public long getLoadGenSeed() {
+        return loadGenSeed;
+    }
+
+    public String getLoadGenInstruments() {
+        return loadGenInstruments;
+    }
+
     public double getMu() {
         return mu;
     }
@@ -0,0 +1,132 @@
+package utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// histograma log-liniara cu memorie fixa (in stilul HdrHistogram)
+// valorile < 128 au bucket propriu; peste, fiecare putere a lui 2 e impartita in 64 de bucket-uri,
+// deci eroarea relativa a unui percentil este sub 1/64 (~1.6%)
+// inregistrarea se face fara lock-uri, pe stripe-uri alese dupa thread, iar citirea le aduna
+public class LatencyHistogram {
+    private static final int SUB_BITS = 7;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int HALF = SUB_COUNT / 2;
+    // valorile mai mari (peste ~18 minute in nanosecunde) sunt puse in ultimul bucket
+    private static final int MAX_BITS = 40;
+    private static final int BUCKETS = SUB_COUNT + (MAX_BITS - SUB_BITS + 1) * HALF;
+    private static final int STRIPES = stripeCount();
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    public LatencyHistogram() {
+        for (int i = 0; i < STRIPES; i++) stripes[i] = new Stripe();
+    }
+
+    public void record(long value) {
+        if (value < 0) value = 0;
+        Stripe s = stripes[(int) (Thread.currentThread().getId() * 0x9E3779B97F4A7C15L >>> 32) & (STRIPES - 1)];
+        s.counts.incrementAndGet(indexOf(value));
+        s.sum.addAndGet(value);
+        if (value > s.max.get()) s.max.accumulateAndGet(value, Math::max);
+        if (value < s.min.get()) s.min.accumulateAndGet(value, Math::min);
+    }
+
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        long sum = 0;
+        long max = 0;
+        long min = Long.MAX_VALUE;
+        for (Stripe s : stripes) {
+            for (int i = 0; i < BUCKETS; i++) counts[i] += s.counts.get(i);
+            sum += s.sum.get();
+            max = Math.max(max, s.max.get());
+            min = Math.min(min, s.min.get());
+        }
+        return new Snapshot(counts, sum, min, max);
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_COUNT) return (int) value;
+        int msb = 63 - Long.numberOfLeadingZeros(value);
+        if (msb > MAX_BITS) return BUCKETS - 1;
+        int shift = msb - SUB_BITS + 1;
+        int mantissa = (int) (value >>> shift);
+        return SUB_COUNT + (shift - 1) * HALF + (mantissa - HALF);
+    }
+
+    // valoarea reprezentativa (mijlocul) a unui bucket
+    static long valueOf(int index) {
+        if (index < SUB_COUNT) return index;
+        int shift = (index - SUB_COUNT) / HALF + 1;
+        long mantissa = (index - SUB_COUNT) % HALF + HALF;
+        return (mantissa << shift) + (1L << (shift - 1));
+    }
+
+    private static int stripeCount() {
+        int n = 1;
+        while (n < Runtime.getRuntime().availableProcessors()) n <<= 1;
+        return n;
+    }
+
+    private static class Stripe {
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+        private final AtomicLong sum = new AtomicLong();
+        private final AtomicLong max = new AtomicLong();
+        private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+    }
+
+    public static class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long min;
+        private final long max;
+
+        Snapshot(long[] counts, long sum, long min, long max) {
+            long total = 0;
+            for (long c : counts) total += c;
+            this.counts = counts;
+            this.count = total;
+            this.sum = sum;
+            this.min = total == 0 ? 0 : min;
+            this.max = max;
+        }
+
+        // diferenta fata de un snapshot mai vechi al aceleiasi histograme (intervalul dintre ele);
+        // min/max pentru interval sunt aproximate din bucket-uri
+        public Snapshot minus(Snapshot earlier) {
+            long[] diff = new long[counts.length];
+            int lo = -1;
+            int hi = -1;
+            for (int i = 0; i < counts.length; i++) {
+                diff[i] = counts[i] - earlier.counts[i];
+                if (diff[i] > 0) {
+                    if (lo < 0) lo = i;
+                    hi = i;
+                }
+            }
+            if (lo < 0) return new Snapshot(diff, 0, 0, 0);
+            return new Snapshot(diff, sum - earlier.sum,
+                    Math.max(valueOf(lo), min), Math.min(valueOf(hi), max));
+        }
+
+        public long getCount() { return count; }
+        public long getMin() { return min; }
+        public long getMax() { return max; }
+
+        public double getMean() {
+            return count == 0 ? 0.0 : (double) sum / count;
+        }
+
+        public long percentile(double p) {
+            if (count == 0) return 0;
+            long rank = Math.max(1, (long) Math.ceil(count * p / 100.0));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) return Math.min(Math.max(valueOf(i), min), max);
+            }
+            return max;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package utils;
+
+import model.LifecycleStage;
+import model.Order;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+// latenta pe fiecare tranzitie din viata unui ordin, pentru un esantion de 1 din sampleRate ordine
+public class LifecycleTracer {
+    private static final LifecycleStage[] STAGES = LifecycleStage.values();
+    private static final String[] TRANSITIONS = new String[STAGES.length];
+    private static final int SAMPLE_RATE = ConfigManager.getInstance().getTraceSampleRate();
+
+    static {
+        for (int i = 1; i < STAGES.length; i++) {
+            TRANSITIONS[i] = "lifecycle_" + STAGES[i - 1].name().toLowerCase() + "_to_" + STAGES[i].name().toLowerCase();
+        }
+    }
+
+    public static boolean sample() {
+        int rate = SAMPLE_RATE;
+        return rate == 1 || (rate > 1 && ThreadLocalRandom.current().nextInt(rate) == 0);
+    }
+
+    public static void report(Order o) {
+        if (!o.isTraced()) return;
+        // o tranzitie se masoara doar intre cele doua etape vecine ale ei; daca una lipseste, intervalul
+        // ar acoperi alte etape si ar intra in histograma gresita
+        for (int i = 1; i < STAGES.length; i++) {
+            long prev = o.getCheckpoint(STAGES[i - 1]);
+            long t = o.getCheckpoint(STAGES[i]);
+            // in modul event ordinul poate fi executat inainte de confirmarea PENDING
+            if (prev != 0 && t >= prev) PerformanceMonitor.recordTiming(TRANSITIONS[i], t - prev);
+        }
+        long end = o.getCheckpoint(LifecycleStage.NOTIFIED);
+        if (end != 0) PerformanceMonitor.recordTiming("lifecycle_end_to_end", end - o.getCheckpoint(STAGES[0]));
+        PerformanceMonitor.incrementCounter("lifecycle_traced_orders");
+    }
+}
@@ -5,22 +5,30 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.*;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.LongAdder;
 
 public class PerformanceMonitor {
-    private static final Map<String, List<Long>> timings = new ConcurrentHashMap<>();
-    private static final Map<String, Long> counters = new ConcurrentHashMap<>();
+    private static final Map<String, LatencyHistogram> timings = new ConcurrentHashMap<>();
+    private static final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
     private static long startTime = System.currentTimeMillis();
 
     public static void recordTiming(String operation, long durationNanos) {
-        timings.computeIfAbsent(operation, k -> Collections.synchronizedList(new ArrayList<>()))
-                .add(durationNanos);
+        LatencyHistogram h = timings.get(operation);
+        if (h == null) h = timings.computeIfAbsent(operation, k -> new LatencyHistogram());
+        h.record(durationNanos);
     }
 
     public static void incrementCounter(String operation) {
-        counters.merge(operation, 1L, Long::sum);
+        incrementCounter(operation, 1);
+    }
+
+    public static void incrementCounter(String operation, long delta) {
+        LongAdder c = counters.get(operation);
+        if (c == null) c = counters.computeIfAbsent(operation, k -> new LongAdder());
+        c.add(delta);
     }
 
     public static void printStatistics() {
@@ -31,36 +39,22 @@ public class PerformanceMonitor {
         long totalRunTime = (System.currentTimeMillis() - startTime) / 1000;
         System.out.println("Total runtime: " + totalRunTime + " seconds\n");
 
-        System.out.println("RESPONSE TIMES:");
+        System.out.println("RESPONSE TIMES (ms):");
         System.out.println("-".repeat(80));
-        System.out.printf("%-35s %8s %14s %14s %14s %14s %14s%n",
-                "Operation", "Count", "Mean", "Median", "Min", "Max", "p95");
+        System.out.printf("%-35s %8s %12s %12s %12s %12s %12s %12s%n",
+                "Operation", "Count", "Mean", "p50", "p90", "p99", "p99.9", "Max");
         System.out.println("-".repeat(80));
 
         timings.entrySet().stream()
                 .sorted(Map.Entry.comparingByKey())
                 .forEach(entry -> {
-                    String operation = entry.getKey();
-                    List<Long> times = entry.getValue();
-
-                    if (times.isEmpty()) return;
-
-                    List<Long> sortedTimes = times.stream()
-                            .sorted()
-                            .collect(Collectors.toList());
+                    LatencyHistogram.Snapshot s = entry.getValue().snapshot();
+                    if (s.getCount() == 0) return;
 
-                    double mean = sortedTimes.stream()
-                            .mapToLong(Long::longValue)
-                            .average()
-                            .orElse(0.0) / 1_000_000.0;
-
-                    double min = sortedTimes.get(0) / 1_000_000.0;
-                    double max = sortedTimes.get(sortedTimes.size() - 1) / 1_000_000.0;
-                    double median = sortedTimes.get(sortedTimes.size() / 2) / 1_000_000.0;
-                    double p95 = sortedTimes.get((int)(sortedTimes.size() * 0.95)) / 1_000_000.0;
-
-                    System.out.printf("%-35s %8d %14.6f %14.6f %14.6f %14.6f %14.6f%n",
-                            operation, times.size(), mean, median, min, max, p95);
+                    System.out.printf("%-35s %8d %12.6f %12.6f %12.6f %12.6f %12.6f %12.6f%n",
+                            entry.getKey(), s.getCount(), s.getMean() / 1_000_000.0,
+                            millis(s.percentile(50)), millis(s.percentile(90)), millis(s.percentile(99)),
+                            millis(s.percentile(99.9)), millis(s.getMax()));
                 });
 
         if (!counters.isEmpty()) {
@@ -73,9 +67,10 @@ public class PerformanceMonitor {
             counters.entrySet().stream()
                     .sorted(Map.Entry.comparingByKey())
                     .forEach(entry -> {
-                        double perSecond = totalRunTime > 0 ? entry.getValue() / (double)totalRunTime : 0;
+                        long total = entry.getValue().sum();
+                        double perSecond = totalRunTime > 0 ? total / (double)totalRunTime : 0;
                         System.out.printf("%-45s %15d %15.2f%n",
-                                entry.getKey(), entry.getValue(), perSecond);
+                                entry.getKey(), total, perSecond);
                     });
         }
 
@@ -96,34 +91,20 @@ public class PerformanceMonitor {
 
             writer.println("RESPONSE TIMES:");
             writer.println("-".repeat(80));
-            writer.printf("%-35s %8s %14s %14s %14s %14s %14s%n",
-                    "Operation", "Count", "Mean", "Median", "Min", "Max", "p95");
+            writer.printf("%-30s %8s %9s %9s %9s %9s %9s %9s%n",
+                    "Operation", "Count", "Mean", "p50", "p90", "p99", "p99.9", "Max");
             writer.println("-".repeat(80));
 
             timings.entrySet().stream()
                     .sorted(Map.Entry.comparingByKey())
                     .forEach(entry -> {
-                        String operation = entry.getKey();
-                        List<Long> times = entry.getValue();
-
-                        if (times.isEmpty()) return;
-
-                        List<Long> sortedTimes = times.stream()
-                                .sorted()
-                                .collect(Collectors.toList());
+                        LatencyHistogram.Snapshot s = entry.getValue().snapshot();
+                        if (s.getCount() == 0) return;
 
-                        double mean = sortedTimes.stream()
-                                .mapToLong(Long::longValue)
-                                .average()
-                                .orElse(0.0) / 1_000_000.0;
-
-                        double min = sortedTimes.get(0) / 1_000_000.0;
-                        double max = sortedTimes.get(sortedTimes.size() - 1) / 1_000_000.0;
-                        double median = sortedTimes.get(sortedTimes.size() / 2) / 1_000_000.0;
-                        double p95 = sortedTimes.get((int)(sortedTimes.size() * 0.95)) / 1_000_000.0;
-
-                        writer.printf("%-30s %8d %7.2fms %7.2fms %7.2fms %7.2fms %9.2fms%n",
-                                operation, times.size(), mean, median, min, max, p95);
+                        writer.printf("%-30s %8d %7.2fms %7.2fms %7.2fms %7.2fms %7.2fms %7.2fms%n",
+                                entry.getKey(), s.getCount(), s.getMean() / 1_000_000.0,
+                                millis(s.percentile(50)), millis(s.percentile(90)), millis(s.percentile(99)),
+                                millis(s.percentile(99.9)), millis(s.getMax()));
                     });
 
             if (!counters.isEmpty()) {
@@ -137,9 +118,10 @@ public class PerformanceMonitor {
                 counters.entrySet().stream()
                         .sorted(Map.Entry.comparingByKey())
                         .forEach(entry -> {
-                            double perSecond = totalRunTime > 0 ? entry.getValue() / (double)totalRunTime : 0;
+                            long total = entry.getValue().sum();
+                            double perSecond = totalRunTime > 0 ? total / (double)totalRunTime : 0;
                             writer.printf("%-40s %15d %15.2f%n",
-                                    entry.getKey(), entry.getValue(), perSecond);
+                                    entry.getKey(), total, perSecond);
                         });
             }
 
@@ -152,6 +134,22 @@ public class PerformanceMonitor {
         }
     }
 
+    public static Map<String, LatencyHistogram.Snapshot> timingSnapshots() {
+        Map<String, LatencyHistogram.Snapshot> result = new TreeMap<>();
+        timings.forEach((k, v) -> result.put(k, v.snapshot()));
+        return result;
+    }
+
+    public static Map<String, Long> counterValues() {
+        Map<String, Long> result = new TreeMap<>();
+        counters.forEach((k, v) -> result.put(k, v.sum()));
+        return result;
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
     public static void reset() {
         timings.clear();
         counters.clear();
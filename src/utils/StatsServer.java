@@ -0,0 +1,232 @@
+package utils;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+// ferestre de statistici (la fiecare windowMillis) din PerformanceMonitor, servite pe localhost:
+//   GET /stats            text, ultima fereastra
+//   GET /stats.json       JSON, ultima fereastra
+//   ?windows=N            ultimele N ferestre
+// O fereastra pastreaza doar rezumatul fiecarei operatii (numar, medie, percentile, max), nu histograma,
+// deci memoria e fixa: maxWindows x operatii x cateva long-uri
+public class StatsServer {
+    private final int port;
+    private final int maxWindows;
+    private final Deque<Window> windows = new ArrayDeque<>();
+    private Map<String, LatencyHistogram.Snapshot> lastTimings = new TreeMap<>();
+    private Map<String, Long> lastCounters = new TreeMap<>();
+    private long lastRollMillis = System.currentTimeMillis();
+    private HttpServer server;
+
+    public StatsServer(int port, int maxWindows) {
+        this.port = port;
+        this.maxWindows = maxWindows;
+    }
+
+    public void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/stats", this::handle);
+        server.start();
+        System.out.println("Stats server started on http://localhost:" + port + "/stats");
+    }
+
+    // endpoint JSON suplimentar; handler-ul primeste query string-ul (sau null)
+    public void addEndpoint(String path, Function<String, String> handler) {
+        server.createContext(path, exchange -> {
+            try (exchange) {
+                byte[] bytes = handler.apply(exchange.getRequestURI().getQuery()).getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+                exchange.sendResponseHeaders(200, bytes.length);
+                try (OutputStream os = exchange.getResponseBody()) {
+                    os.write(bytes);
+                }
+            }
+        });
+    }
+
+    public void stop() {
+        if (server != null) server.stop(0);
+    }
+
+    // inchide fereastra curenta; apelat periodic
+    public void roll() {
+        try {
+            long now = System.currentTimeMillis();
+            Map<String, LatencyHistogram.Snapshot> timings = PerformanceMonitor.timingSnapshots();
+            Map<String, Long> counters = PerformanceMonitor.counterValues();
+
+            Map<String, Summary> timingDeltas = new TreeMap<>();
+            timings.forEach((k, v) -> {
+                LatencyHistogram.Snapshot prev = lastTimings.get(k);
+                LatencyHistogram.Snapshot delta = prev == null ? v : v.minus(prev);
+                if (delta.getCount() > 0) timingDeltas.put(k, new Summary(delta));
+            });
+            Map<String, Long> counterDeltas = new TreeMap<>();
+            counters.forEach((k, v) -> counterDeltas.put(k, v - lastCounters.getOrDefault(k, 0L)));
+
+            Window w = new Window(lastRollMillis, now, timingDeltas, counterDeltas);
+            synchronized (windows) {
+                windows.addLast(w);
+                while (windows.size() > maxWindows) windows.removeFirst();
+            }
+            lastTimings = timings;
+            lastCounters = counters;
+            lastRollMillis = now;
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    public List<Window> recent(int n) {
+        synchronized (windows) {
+            List<Window> all = new ArrayList<>(windows);
+            return all.subList(Math.max(0, all.size() - n), all.size());
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            int n = 1;
+            String query = exchange.getRequestURI().getQuery();
+            if (query != null && query.startsWith("windows=")) {
+                try {
+                    n = Math.max(1, Integer.parseInt(query.substring("windows=".length())));
+                } catch (NumberFormatException ignored) {}
+            }
+            boolean json = exchange.getRequestURI().getPath().endsWith(".json");
+            List<Window> selected = recent(n);
+            String body = json ? toJson(selected) : toText(selected);
+
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type",
+                    json ? "application/json; charset=utf-8" : "text/plain; charset=utf-8");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(bytes);
+            }
+        }
+    }
+
+    private static String toText(List<Window> windows) {
+        StringBuilder sb = new StringBuilder();
+        for (Window w : windows) {
+            double seconds = w.durationSeconds();
+            sb.append("WINDOW ").append(Instant.ofEpochMilli(w.start)).append(" - ")
+                    .append(Instant.ofEpochMilli(w.end)).append('\n');
+            sb.append(String.format(Locale.ROOT, "%-35s %8s %10s %10s %10s %10s %10s %10s %10s%n",
+                    "Operation", "Count", "Per Second", "Mean", "p50", "p90", "p99", "p99.9", "Max"));
+            w.timings.forEach((op, s) -> sb.append(String.format(Locale.ROOT,
+                    "%-35s %8d %10.2f %10.4f %10.4f %10.4f %10.4f %10.4f %10.4f%n",
+                    op, s.count, s.count / seconds, s.mean / 1_000_000.0,
+                    millis(s.p50), millis(s.p90), millis(s.p99), millis(s.p999), millis(s.max))));
+            sb.append(String.format(Locale.ROOT, "%-35s %8s %10s%n", "Counter", "Count", "Per Second"));
+            w.counters.forEach((name, c) -> {
+                if (c == 0) return;
+                sb.append(String.format(Locale.ROOT, "%-35s %8d %10.2f%n", name, c, c / seconds));
+            });
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static String toJson(List<Window> windows) {
+        StringBuilder sb = new StringBuilder("{\"windows\":[");
+        for (int i = 0; i < windows.size(); i++) {
+            Window w = windows.get(i);
+            double seconds = w.durationSeconds();
+            if (i > 0) sb.append(',');
+            sb.append("{\"start\":\"").append(Instant.ofEpochMilli(w.start))
+                    .append("\",\"end\":\"").append(Instant.ofEpochMilli(w.end))
+                    .append("\",\"timings\":{");
+            boolean first = true;
+            for (Map.Entry<String, Summary> e : w.timings.entrySet()) {
+                Summary s = e.getValue();
+                if (!first) sb.append(',');
+                first = false;
+                sb.append(String.format(Locale.ROOT,
+                        "\"%s\":{\"count\":%d,\"perSecond\":%.2f,\"meanMs\":%.4f,\"p50Ms\":%.4f,"
+                                + "\"p90Ms\":%.4f,\"p99Ms\":%.4f,\"p999Ms\":%.4f,\"maxMs\":%.4f}",
+                        e.getKey(), s.count, s.count / seconds, s.mean / 1_000_000.0,
+                        millis(s.p50), millis(s.p90), millis(s.p99), millis(s.p999), millis(s.max)));
+            }
+            sb.append("},\"counters\":{");
+            first = true;
+            for (Map.Entry<String, Long> e : w.counters.entrySet()) {
+                if (e.getValue() == 0) continue;
+                if (!first) sb.append(',');
+                first = false;
+                sb.append(String.format(Locale.ROOT, "\"%s\":{\"count\":%d,\"perSecond\":%.2f}",
+                        e.getKey(), e.getValue(), e.getValue() / seconds));
+            }
+            sb.append("}}");
+        }
+        return sb.append("]}").toString();
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    public static class Window {
+        private final long start;
+        private final long end;
+        private final Map<String, Summary> timings;
+        private final Map<String, Long> counters;
+
+        Window(long start, long end, Map<String, Summary> timings, Map<String, Long> counters) {
+            this.start = start;
+            this.end = end;
+            this.timings = timings;
+            this.counters = counters;
+        }
+
+        public long getStart() { return start; }
+        public long getEnd() { return end; }
+        public Map<String, Summary> getTimings() { return timings; }
+        public Map<String, Long> getCounters() { return counters; }
+
+        double durationSeconds() {
+            return Math.max(1, end - start) / 1000.0;
+        }
+    }
+
+    // ce se afiseaza dintr-o histograma de fereastra, in nanosecunde
+    public static class Summary {
+        private final long count;
+        private final double mean;
+        private final long p50;
+        private final long p90;
+        private final long p99;
+        private final long p999;
+        private final long max;
+
+        Summary(LatencyHistogram.Snapshot s) {
+            this.count = s.getCount();
+            this.mean = s.getMean();
+            this.p50 = s.percentile(50);
+            this.p90 = s.percentile(90);
+            this.p99 = s.percentile(99);
+            this.p999 = s.percentile(99.9);
+            this.max = s.getMax();
+        }
+
+        public long getCount() { return count; }
+        public double getMean() { return mean; }
+        public long getMax() { return max; }
+    }
+}
@@ -0,0 +1,56 @@
+package utils;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
+
+// thread-uri virtuale cand threadMode=virtual si JVM-ul le suporta (Java 21+);
+// API-ul e apelat prin reflexie ca proiectul sa compileze in continuare cu Java 17
+public class VirtualThreads {
+    private static final Method NEW_EXECUTOR = find(java.util.concurrent.Executors.class,
+            "newVirtualThreadPerTaskExecutor");
+    private static final Method START_THREAD = find(Thread.class, "startVirtualThread", Runnable.class);
+    private static final boolean ENABLED = resolve();
+
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    // un thread virtual per task, altfel pool-ul de thread-uri platforma dat
+    public static ExecutorService executor(Supplier<ExecutorService> platform) {
+        if (!ENABLED) return platform.get();
+        try {
+            return (ExecutorService) NEW_EXECUTOR.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return platform.get();
+        }
+    }
+
+    public static void start(Runnable task) {
+        if (ENABLED) {
+            try {
+                START_THREAD.invoke(null, task);
+                return;
+            } catch (ReflectiveOperationException ignored) {}
+        }
+        new Thread(task).start();
+    }
+
+    private static boolean resolve() {
+        if (!ConfigManager.getInstance().isVirtualThreadMode()) return false;
+        if (NEW_EXECUTOR == null || START_THREAD == null) {
+            System.err.println("Virtual threads require Java 21+, using platform threads ("
+                    + System.getProperty("java.version") + ")");
+            return false;
+        }
+        return true;
+    }
+
+    private static Method find(Class<?> type, String name, Class<?>... params) {
+        try {
+            return type.getMethod(name, params);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}